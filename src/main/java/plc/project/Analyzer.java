@@ -13,9 +13,19 @@ import java.util.stream.Collectors;
 public final class Analyzer implements Ast.Visitor<Void> {
 
     public Scope scope;
+    private final Environment.Namespace types;
     private Ast.Method method;
 
     public Analyzer(Scope parent) {
+        this(parent, null);
+    }
+
+    /**
+     * Creates an analyzer which resolves type names in the given namespace,
+     * such as one per compilation unit, or the global types if {@code null}.
+     */
+    public Analyzer(Scope parent, Environment.Namespace types) {
+        this.types = types;
         scope = new Scope(parent);
         scope.defineFunction("print", "System.out.println", Arrays.asList(Environment.Type.ANY), Environment.Type.NIL, args -> Environment.NIL);
     }
@@ -26,6 +36,8 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Source ast) {
+        ast.getFields().forEach(this::visit);
+        ast.getMethods().forEach(this::visit);
         if (scope.lookupFunction("main", 0).getReturnType() != Environment.Type.INTEGER) {
             throw new RuntimeException("Main function must return an Integer.");
         }
@@ -35,17 +47,20 @@ public final class Analyzer implements Ast.Visitor<Void> {
     @Override
     public Void visit(Ast.Field ast) {
         ast.getValue().ifPresent(this::visit);
-        ast.setVariable(scope.defineVariable(ast.getName(), ast.getName(), Environment.getType(ast.getTypeName()), Environment.NIL));
-        ast.getValue().ifPresent(value -> requireAssignable(value.getType(), Environment.getType(ast.getTypeName())));
+        ast.setVariable(scope.defineVariable(ast.getName(), ast.getName(), getType(ast.getTypeName()), Environment.NIL));
+        ast.getValue().ifPresent(value -> requireAssignable(value.getType(), getType(ast.getTypeName())));
         return null;
     }
 
     @Override
     public Void visit(Ast.Method ast) {
         method = ast;
-        ast.setFunction(scope.defineFunction(ast.getName(), ast.getName(), ast.getParameters().stream().map(Environment::getType).collect(Collectors.toList()), ast.getReturnTypeName().isPresent() ? Environment.getType(ast.getReturnTypeName().get()) : Environment.Type.NIL, args -> Environment.NIL));
+        ast.setFunction(scope.defineFunction(ast.getName(), ast.getName(), ast.getParameterTypeNames().stream().map(this::getType).collect(Collectors.toList()), ast.getReturnTypeName().isPresent() ? getType(ast.getReturnTypeName().get()) : Environment.Type.NIL, args -> Environment.NIL));
         try {
             scope = new Scope(scope);
+            for (int i = 0; i < ast.getParameters().size(); i++) {
+                scope.defineVariable(ast.getParameters().get(i), ast.getParameters().get(i), ast.getFunction().getParameterTypes().get(i), Environment.NIL);
+            }
             ast.getStatements().forEach(this::visit);
         } finally {
             scope = scope.getParent();
@@ -74,7 +89,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
         Environment.Type type = null;
 
         if (ast.getTypeName().isPresent()) {
-            type = Environment.getType(ast.getTypeName().get());
+            type = getType(ast.getTypeName().get());
         }
 
         if (ast.getValue().isPresent()) {
@@ -164,7 +179,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
     @Override
     public Void visit(Ast.Stmt.Return ast) {
         visit(ast.getValue());
-        method.getReturnTypeName().ifPresent(returnTypeName -> requireAssignable(ast.getValue().getType(), Environment.getType(returnTypeName)));
+        method.getReturnTypeName().ifPresent(returnTypeName -> requireAssignable(ast.getValue().getType(), getType(returnTypeName)));
         return null;
     }
 
@@ -212,73 +227,55 @@ public final class Analyzer implements Ast.Visitor<Void> {
     public Void visit(Ast.Expr.Binary ast) {
         visit(ast.getLeft());
         visit(ast.getRight());
-        if (
-                Arrays.stream(new String[] {"AND", "OR"})
-                        .anyMatch(operator -> operator.equals(ast.getOperator()))
-        ) {
-            if (
-                    Arrays.stream(new Ast.Expr[] {ast.getLeft(), ast.getRight()})
-                            .map(Ast.Expr::getType)
-                            .anyMatch(type -> type != Environment.Type.BOOLEAN)
-            ) {
-                throw new RuntimeException("Both operands must be of type Boolean");
-            }
-            ast.setType(Environment.Type.BOOLEAN);
-        } else if (
-                Arrays.stream(new String[] {"<", "<=", ">", ">=", "==", "!="})
-                        .anyMatch(operator -> operator.equals(ast.getOperator()))
-        ) {
-            if (
-                    Arrays.stream(new Ast.Expr[] {ast.getLeft(), ast.getRight()})
-                            .map(Ast.Expr::getType)
-                            .map(Environment.Type::getScope)
-                            .anyMatch(scopeType -> scopeType != Environment.Type.COMPARABLE.getScope())
-            ) {
-                throw new RuntimeException("Both operands must be Comparable");
-            } else if (
-                    Arrays.stream(new Ast.Expr[] {ast.getLeft(), ast.getRight()})
-                            .map(Ast.Expr::getType)
-                            .distinct()
-                            .count() != 1
-            ) {
-                throw new RuntimeException("Both operands must be of the same type");
-            }
-            ast.setType(Environment.Type.BOOLEAN);
-        } else if (ast.getOperator().equals("+")) {
-            if (
-                    Arrays.stream(new Ast.Expr[] {ast.getLeft(), ast.getRight()})
-                            .map(Ast.Expr::getType)
-                            .anyMatch(expr -> expr == Environment.Type.STRING)
-            ) {
-                ast.setType(Environment.Type.STRING);
-            } else {
-                checkMatchingComparable(ast);
-            }
-        } else if (
-                Arrays.stream(new String[] {"-", "*", "/"})
-                        .anyMatch(operator -> operator.equals(ast.getOperator()))
-        ) {
-            checkMatchingComparable(ast);
+        Environment.Type left = ast.getLeft().getType();
+        Environment.Type right = ast.getRight().getType();
+        switch (ast.getOperator()) {
+            case AND:
+            case OR:
+                if (left != Environment.Type.BOOLEAN || right != Environment.Type.BOOLEAN) {
+                    throw new RuntimeException("Both operands must be of type Boolean");
+                }
+                ast.setType(Environment.Type.BOOLEAN);
+                break;
+            case LESS_THAN:
+            case LESS_THAN_OR_EQUAL:
+            case GREATER_THAN:
+            case GREATER_THAN_OR_EQUAL:
+            case EQUAL:
+            case NOT_EQUAL:
+                requireAssignable(Environment.Type.COMPARABLE, left);
+                requireAssignable(Environment.Type.COMPARABLE, right);
+                if (left != right) {
+                    throw new RuntimeException("Both operands must be of the same type");
+                }
+                ast.setType(Environment.Type.BOOLEAN);
+                break;
+            case ADD:
+                if (left == Environment.Type.STRING || right == Environment.Type.STRING) {
+                    ast.setType(Environment.Type.STRING);
+                } else {
+                    checkMatchingComparable(ast, left, right);
+                }
+                break;
+            case SUBTRACT:
+            case MULTIPLY:
+            case DIVIDE:
+                checkMatchingComparable(ast, left, right);
+                break;
         }
         return null;
     }
 
-    private static void checkMatchingComparable(Ast.Expr.Binary ast) {
+    private static void checkMatchingComparable(Ast.Expr.Binary ast, Environment.Type left, Environment.Type right) {
         if (
-                Arrays.stream(new Ast.Expr[] {ast.getLeft(), ast.getRight()})
-                        .map(Ast.Expr::getType)
-                        .anyMatch(type -> type != Environment.Type.INTEGER && type != Environment.Type.DECIMAL)
+                (left != Environment.Type.INTEGER && left != Environment.Type.DECIMAL) ||
+                (right != Environment.Type.INTEGER && right != Environment.Type.DECIMAL)
         ) {
             throw new RuntimeException("Both operands must be an Integer or Decimal");
-        } else if (
-                Arrays.stream(new Ast.Expr[] {ast.getLeft(), ast.getRight()})
-                        .map(Ast.Expr::getType)
-                        .distinct()
-                        .count() != 1
-        ) {
+        } else if (left != right) {
             throw new RuntimeException("Both operands must be of the same type");
         } else {
-            ast.setType(ast.getLeft().getType());
+            ast.setType(left);
         }
     }
 
@@ -311,6 +308,10 @@ public final class Analyzer implements Ast.Visitor<Void> {
         return null;
     }
 
+    private Environment.Type getType(String name) {
+        return types != null ? types.getType(name) : Environment.getType(name);
+    }
+
     public static void requireAssignable(Environment.Type target, Environment.Type type) {
         if ((
                 target != type
@@ -552,18 +552,81 @@ public abstract class Ast {
 
         public static final class Binary extends Expr {
 
-            private final String operator;
+            /**
+             * The binary operators, resolved from their symbol once by the
+             * parser so visitors can switch on them without comparing
+             * strings. The symbol is only used for printing.
+             */
+            public enum Operator {
+                AND("AND"),
+                OR("OR"),
+                LESS_THAN("<"),
+                LESS_THAN_OR_EQUAL("<="),
+                GREATER_THAN(">"),
+                GREATER_THAN_OR_EQUAL(">="),
+                EQUAL("=="),
+                NOT_EQUAL("!="),
+                ADD("+"),
+                SUBTRACT("-"),
+                MULTIPLY("*"),
+                DIVIDE("/");
+
+                private final String symbol;
+
+                Operator(String symbol) {
+                    this.symbol = symbol;
+                }
+
+                public String getSymbol() {
+                    return symbol;
+                }
+
+                /**
+                 * Returns the operator with the given symbol, throwing an
+                 * {@link IllegalArgumentException} if there is none.
+                 */
+                public static Operator of(String symbol) {
+                    switch (symbol) {
+                        case "AND": return AND;
+                        case "OR": return OR;
+                        case "<": return LESS_THAN;
+                        case "<=": return LESS_THAN_OR_EQUAL;
+                        case ">": return GREATER_THAN;
+                        case ">=": return GREATER_THAN_OR_EQUAL;
+                        case "==": return EQUAL;
+                        case "!=": return NOT_EQUAL;
+                        case "+": return ADD;
+                        case "-": return SUBTRACT;
+                        case "*": return MULTIPLY;
+                        case "/": return DIVIDE;
+                        default: throw new IllegalArgumentException("Unknown operator " + symbol + ".");
+                    }
+                }
+
+                @Override
+                public String toString() {
+                    return symbol;
+                }
+
+            }
+
+            private final Operator operator;
             private final Expr left;
             private final Expr right;
             private Environment.Type type = null;
+            private Operators.Implementation implementation = null;
 
             public Binary(String operator, Expr left, Expr right) {
+                this(Operator.of(operator), left, right);
+            }
+
+            public Binary(Operator operator, Expr left, Expr right) {
                 this.operator = operator;
                 this.left = left;
                 this.right = right;
             }
 
-            public String getOperator() {
+            public Operator getOperator() {
                 return operator;
             }
 
@@ -587,10 +650,24 @@ public abstract class Ast {
                 this.type = type;
             }
 
+            /**
+             * Returns the operator implementation cached by the
+             * {@link Interpreter} for the last operand classes seen, or
+             * {@code null} if this expression has not been evaluated. The
+             * cache is not part of the node's value for {@link #equals}.
+             */
+            Operators.Implementation getImplementation() {
+                return implementation;
+            }
+
+            void setImplementation(Operators.Implementation implementation) {
+                this.implementation = implementation;
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Binary &&
-                        operator.equals(((Binary) obj).operator) &&
+                        operator == ((Binary) obj).operator &&
                         left.equals(((Binary) obj).left) &&
                         right.equals(((Binary) obj).right) &&
                         Objects.equals(type, ((Binary) obj).type);
@@ -613,6 +690,7 @@ public abstract class Ast {
             private final Optional<Expr> receiver;
             private final String name;
             private Environment.Variable variable = null;
+            private Interpreter.AccessSite accessSite = null;
 
             public Access(Optional<Expr> receiver, String name) {
                 this.receiver = receiver;
@@ -638,6 +716,20 @@ public abstract class Ast {
                 this.variable = variable;
             }
 
+            /**
+             * Returns the depth this access last resolved its variable at in
+             * the {@link Interpreter}, or {@code null} if it has not been
+             * evaluated. The cache is not part of the node's value for
+             * {@link #equals}.
+             */
+            Interpreter.AccessSite getAccessSite() {
+                return accessSite;
+            }
+
+            void setAccessSite(Interpreter.AccessSite accessSite) {
+                this.accessSite = accessSite;
+            }
+
             @Override
             public Environment.Type getType() {
                 return getVariable().getType();
@@ -668,6 +760,7 @@ public abstract class Ast {
             private final String name;
             private final List<Expr> arguments;
             private Environment.Function function = null;
+            private Interpreter.CallSite callSite = null;
 
             public Function(Optional<Expr> receiver, String name, List<Expr> arguments) {
                 this.receiver = receiver;
@@ -698,6 +791,20 @@ public abstract class Ast {
                 this.function = function;
             }
 
+            /**
+             * Returns the function this call last resolved to in the
+             * {@link Interpreter}, or {@code null} if it has not been
+             * evaluated. Unlike the function set by the {@link Analyzer}, the
+             * cache is not part of the node's value for {@link #equals}.
+             */
+            Interpreter.CallSite getCallSite() {
+                return callSite;
+            }
+
+            void setCallSite(Interpreter.CallSite callSite) {
+                this.callSite = callSite;
+            }
+
             @Override
             public Environment.Type getType() {
                 return getFunction().getReturnType();
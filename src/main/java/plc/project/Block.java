@@ -0,0 +1,66 @@
+package plc.project;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A lexical block of code being compiled, mapping the names of its locals to
+ * where an engine keeps them, such as a register, a frame slot or a JVM
+ * local. The compilers of all engines resolve variables through blocks, so
+ * they agree on which declaration an access refers to.
+ *
+ * Since declarations in a block execute in the order they appear, the
+ * variable an access finds at runtime is the innermost preceding declaration
+ * in an enclosing block, or a global if there is none. The block of top level
+ * code is global, so its declarations are globals and lookups stop there.
+ */
+final class Block<T> {
+
+    private final Block<T> parent;
+    private final boolean global;
+    private final Map<String, T> locals = new HashMap<>();
+
+    Block(Block<T> parent, boolean global) {
+        this.parent = parent;
+        this.global = global;
+    }
+
+    Block<T> getParent() {
+        return parent;
+    }
+
+    boolean isGlobal() {
+        return global;
+    }
+
+    /**
+     * Returns whether a local with the given name is declared in this block
+     * itself, which a declaration would define twice.
+     */
+    boolean isDefined(String name) {
+        return locals.containsKey(name);
+    }
+
+    /**
+     * Declares a local in this block, returning the one it replaces if the
+     * name was already defined here.
+     */
+    T define(String name, T local) {
+        return locals.put(name, local);
+    }
+
+    /**
+     * Returns the local with the given name, or null if the name refers to a
+     * global.
+     */
+    T resolve(String name) {
+        for (Block<T> block = this; block != null && !block.global; block = block.parent) {
+            T local = block.locals.get(name);
+            if (local != null) {
+                return local;
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,133 @@
+package plc.project;
+
+import java.util.List;
+
+/**
+ * Compiled code for the {@link StackMachine}, either for a method or for the
+ * top level AST passed to {@link ExecutionEngine#execute(Ast)}. Instructions
+ * are an opcode followed by its operands, stored inline in a single int array.
+ *
+ * Operands are indices into the constants (names, literal values and the
+ * code of methods), absolute jump targets, local slots or inline integers.
+ * Locals are resolved to slots of the frame at compile time (the parameters
+ * of a method are slots {@code 0} to {@code n - 1}), and the operand stack
+ * starts above them. The effect of each instruction on the operand stack is
+ * given as {@code before -> after}.
+ */
+public final class Bytecode {
+
+    /** {@code -> nil} */
+    static final int NIL = 0;
+    /** {@code CONST value: -> value} */
+    static final int CONST = 1;
+    /** {@code LOAD_LOCAL slot: -> value} */
+    static final int LOAD_LOCAL = 2;
+    /** {@code STORE_LOCAL slot: value ->} */
+    static final int STORE_LOCAL = 3;
+    /** {@code LOAD name: -> value}, looking up the global in the scope. */
+    static final int LOAD = 4;
+    /** {@code STORE name: value ->}, looking up the global in the scope. */
+    static final int STORE = 5;
+    /** {@code DEFINE name: value ->}, defining the global in the scope. */
+    static final int DEFINE = 6;
+    /** {@code GET_FIELD name: object -> value} */
+    static final int GET_FIELD = 7;
+    /** {@code SET_FIELD name: value, object ->} */
+    static final int SET_FIELD = 8;
+    /** {@code CALL name, arity: arguments... -> result} */
+    static final int CALL = 9;
+    /** {@code INVOKE name, arity: arguments..., receiver -> result} */
+    static final int INVOKE = 10;
+    /** {@code value ->} */
+    static final int POP = 11;
+    /** {@code JUMP target: ->} */
+    static final int JUMP = 12;
+    /** {@code JUMP_IF_FALSE target: condition ->} */
+    static final int JUMP_IF_FALSE = 13;
+    /**
+     * {@code OR target: left -> | true}, jumping with {@code true} if the left
+     * operand is true and otherwise continuing to evaluate the right operand.
+     */
+    static final int OR = 14;
+    /** {@code value -> boolean}, requiring a boolean value. */
+    static final int BOOLEAN = 15;
+    /**
+     * {@code AND ... DIVIDE: left, right -> result}, one for each operator of
+     * {@link Operators#getOpcode}, in the same order.
+     */
+    static final int AND = 16;
+    static final int LESS_THAN = 17;
+    static final int LESS_THAN_OR_EQUAL = 18;
+    static final int GREATER_THAN = 19;
+    static final int GREATER_THAN_OR_EQUAL = 20;
+    static final int EQUAL = 21;
+    static final int NOT_EQUAL = 22;
+    static final int ADD = 23;
+    static final int SUBTRACT = 24;
+    static final int MULTIPLY = 25;
+    static final int DIVIDE = 26;
+    /**
+     * {@code INTEGER value: -> integer}, pushing an integer literal which
+     * fits in an int without boxing it.
+     */
+    static final int INTEGER = 27;
+    /**
+     * {@code JUMP_UNLESS_LESS_THAN ... JUMP_UNLESS_NOT_EQUAL target: left,
+     * right ->}, comparing the operands like {@code LESS_THAN ... NOT_EQUAL}
+     * and jumping if the comparison is false, in the same order.
+     */
+    static final int JUMP_UNLESS_LESS_THAN = 28;
+    static final int JUMP_UNLESS_LESS_THAN_OR_EQUAL = 29;
+    static final int JUMP_UNLESS_GREATER_THAN = 30;
+    static final int JUMP_UNLESS_GREATER_THAN_OR_EQUAL = 31;
+    static final int JUMP_UNLESS_EQUAL = 32;
+    static final int JUMP_UNLESS_NOT_EQUAL = 33;
+    /** {@code iterable -> iterator} */
+    static final int ITERATE = 34;
+    /**
+     * {@code NEXT slot, target: iterator -> iterator | }, storing the next
+     * element in the slot, or popping the iterator and jumping once there
+     * are no more elements.
+     */
+    static final int NEXT = 35;
+    /** {@code DEFINE_METHOD method: ->}, defining the method in the scope. */
+    static final int DEFINE_METHOD = 36;
+    /** {@code RETURN: value ->}, returning from the method. */
+    static final int RETURN = 37;
+    /** {@code HALT: value ->}, finishing the top level code with its result. */
+    static final int HALT = 38;
+    /** {@code FAIL message: ->}, throwing a {@link RuntimeException}. */
+    static final int FAIL = 39;
+
+    private final String name;
+    private final List<String> parameters;
+    final int[] code;
+    final Object[] constants;
+    final int locals;
+    final int maxStack;
+
+    Bytecode(String name, List<String> parameters, int[] code, Object[] constants, int locals, int maxStack) {
+        this.name = name;
+        this.parameters = parameters;
+        this.code = code;
+        this.constants = constants;
+        this.locals = locals;
+        this.maxStack = maxStack;
+    }
+
+    /**
+     * Returns the name of the method, or {@code null} for top level code.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getParameters() {
+        return parameters;
+    }
+
+    public boolean isMethod() {
+        return name != null;
+    }
+
+}
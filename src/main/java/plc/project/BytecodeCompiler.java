@@ -0,0 +1,359 @@
+package plc.project;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an AST to {@link Bytecode} for the {@link StackMachine}. Each method
+ * is compiled separately, and its code is a constant of the enclosing code.
+ *
+ * The generated code follows the order of evaluation of the {@link
+ * Interpreter} exactly (e.g. the arguments of a method call are evaluated
+ * before its receiver). Instead of creating a scope for each block, locals
+ * are resolved to slots of the frame through a {@link Block}, the same way
+ * as by the {@link RegisterCompiler}, and only globals (including variables
+ * declared at the top level, which must remain visible in the engine's
+ * scope) are looked up by name. A declaration which the interpreter would
+ * reject as already defined in the same scope compiles to a {@link
+ * Bytecode#FAIL} after its value.
+ *
+ * Conditions of if statements and loops which are comparisons compile to a
+ * single instruction which compares and jumps, and small integer literals
+ * are pushed inline rather than loaded from the constants.
+ */
+public final class BytecodeCompiler implements Ast.Visitor<Void> {
+
+    private final boolean method;
+    private int[] code = new int[64];
+    private int size = 0;
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<String, Integer> names = new HashMap<>();
+    private final Map<Object, Integer> literals = new HashMap<>();
+    private Block<Integer> block;
+    private int locals = 0;
+    private int maxLocals = 0;
+    private int depth = 0;
+    private int maxDepth = 0;
+
+    private BytecodeCompiler(boolean method, boolean global) {
+        this.method = method;
+        this.block = new Block<>(null, global);
+    }
+
+    /**
+     * Compiles top level code, which results in the value of an expression
+     * or the result of {@code main/0} for a source, and otherwise nil.
+     */
+    public static Bytecode compile(Ast ast) {
+        BytecodeCompiler compiler = new BytecodeCompiler(false, true);
+        compiler.visit(ast);
+        if (!(ast instanceof Ast.Expr || ast instanceof Ast.Source)) {
+            compiler.emit(Bytecode.NIL, 1);
+        }
+        compiler.emit(Bytecode.HALT, -1);
+        return compiler.build(null, Arrays.asList());
+    }
+
+    private static Bytecode compileMethod(Ast.Method ast) {
+        BytecodeCompiler compiler = new BytecodeCompiler(true, false);
+        if (new HashSet<>(ast.getParameters()).size() != ast.getParameters().size()) {
+            compiler.emit(Bytecode.FAIL, 0, compiler.constant("A parameter of " + ast.getName() + " is already defined."));
+        }
+        for (String parameter : ast.getParameters()) {
+            compiler.block.define(parameter, compiler.allocate());
+        }
+        ast.getStatements().forEach(compiler::visit);
+        compiler.emit(Bytecode.NIL, 1);
+        compiler.emit(Bytecode.RETURN, -1);
+        return compiler.build(ast.getName(), ast.getParameters());
+    }
+
+    @Override
+    public Void visit(Ast.Source ast) {
+        ast.getFields().forEach(this::visit);
+        ast.getMethods().forEach(this::visit);
+        emit(Bytecode.CALL, 1, name("main"), 0);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Field ast) {
+        visitOptional(ast.getValue().orElse(null));
+        emit(Bytecode.DEFINE, -1, name(ast.getName()));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Method ast) {
+        emit(Bytecode.DEFINE_METHOD, 0, constant(compileMethod(ast)));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Expression ast) {
+        visit(ast.getExpression());
+        emit(Bytecode.POP, -1);
+        return null;
+    }
+
+    /**
+     * Compiles a declaration, which defines a global at the top level and
+     * otherwise allocates a slot for the local. The local is only bound after
+     * its value, which may refer to the variable it shadows.
+     */
+    @Override
+    public Void visit(Ast.Stmt.Declaration ast) {
+        visitOptional(ast.getValue().orElse(null));
+        if (block.isGlobal()) {
+            emit(Bytecode.DEFINE, -1, name(ast.getName()));
+        } else if (block.isDefined(ast.getName())) {
+            emit(Bytecode.FAIL, -1, constant("The variable " + ast.getName() + " is already defined in this scope."));
+        } else {
+            int slot = allocate();
+            emit(Bytecode.STORE_LOCAL, -1, slot);
+            block.define(ast.getName(), slot);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Assignment ast) {
+        if (!(ast.getReceiver() instanceof Ast.Expr.Access)) {
+            emit(Bytecode.FAIL, 0, constant("Invalid assignment receiver " + ast.getReceiver() + "."));
+            return null;
+        }
+        Ast.Expr.Access access = (Ast.Expr.Access) ast.getReceiver();
+        visit(ast.getValue());
+        if (access.getReceiver().isPresent()) {
+            visit(access.getReceiver().get());
+            emit(Bytecode.SET_FIELD, -2, name(access.getName()));
+        } else {
+            Integer slot = block.resolve(access.getName());
+            if (slot != null) {
+                emit(Bytecode.STORE_LOCAL, -1, slot);
+            } else {
+                emit(Bytecode.STORE, -1, name(access.getName()));
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.If ast) {
+        int otherwise = emitCondition(ast.getCondition());
+        visitBlock(ast.getThenStatements());
+        if (ast.getElseStatements().isEmpty()) {
+            patch(otherwise);
+        } else {
+            int end = emitJump(Bytecode.JUMP, 0);
+            patch(otherwise);
+            visitBlock(ast.getElseStatements());
+            patch(end);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.For ast) {
+        visit(ast.getValue());
+        emit(Bytecode.ITERATE, 0);
+        int mark = locals;
+        block = new Block<>(block, false);
+        int slot = allocate();
+        block.define(ast.getName(), slot);
+        int loop = size;
+        emit(Bytecode.NEXT, 0, slot, -1);
+        int end = size - 1;
+        ast.getStatements().forEach(this::visit);
+        block = block.getParent();
+        locals = mark;
+        emit(Bytecode.JUMP, 0, loop);
+        code[end] = size;
+        depth--;
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.While ast) {
+        int loop = size;
+        int end = emitCondition(ast.getCondition());
+        visitBlock(ast.getStatements());
+        emit(Bytecode.JUMP, 0, loop);
+        patch(end);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Return ast) {
+        visit(ast.getValue());
+        if (method) {
+            emit(Bytecode.RETURN, -1);
+        } else {
+            emit(Bytecode.FAIL, -1, constant("Return outside of a method."));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Literal ast) {
+        if (ast.getLiteral() == null) {
+            emit(Bytecode.NIL, 1);
+        } else {
+            if (ast.getLiteral() instanceof BigInteger && ((BigInteger) ast.getLiteral()).bitLength() < 32) {
+                emit(Bytecode.INTEGER, 1, ((BigInteger) ast.getLiteral()).intValue());
+                return null;
+            }
+            Integer index = literals.get(ast.getLiteral());
+            if (index == null) {
+                index = constant(Environment.create(ast.getLiteral()));
+                literals.put(ast.getLiteral(), index);
+            }
+            emit(Bytecode.CONST, 1, index);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Group ast) {
+        return visit(ast.getExpression());
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Binary ast) {
+        visit(ast.getLeft());
+        if (ast.getOperator() == Ast.Expr.Binary.Operator.OR) {
+            int end = emitJump(Bytecode.OR, -1);
+            visit(ast.getRight());
+            emit(Bytecode.BOOLEAN, 0);
+            patch(end);
+        } else {
+            visit(ast.getRight());
+            emit(Operators.getOpcode(ast.getOperator(), Bytecode.AND), -1);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Access ast) {
+        if (ast.getReceiver().isPresent()) {
+            visit(ast.getReceiver().get());
+            emit(Bytecode.GET_FIELD, 0, name(ast.getName()));
+        } else {
+            Integer slot = block.resolve(ast.getName());
+            if (slot != null) {
+                emit(Bytecode.LOAD_LOCAL, 1, slot);
+            } else {
+                emit(Bytecode.LOAD, 1, name(ast.getName()));
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Function ast) {
+        ast.getArguments().forEach(this::visit);
+        int arity = ast.getArguments().size();
+        if (ast.getReceiver().isPresent()) {
+            visit(ast.getReceiver().get());
+            emit(Bytecode.INVOKE, -arity, name(ast.getName()), arity);
+        } else {
+            emit(Bytecode.CALL, 1 - arity, name(ast.getName()), arity);
+        }
+        return null;
+    }
+
+    /**
+     * Compiles the statements of a block, whose locals are released
+     * afterwards so their slots can be reused by the following blocks.
+     */
+    private void visitBlock(List<Ast.Stmt> statements) {
+        int mark = locals;
+        block = new Block<>(block, false);
+        statements.forEach(this::visit);
+        block = block.getParent();
+        locals = mark;
+    }
+
+    /**
+     * Compiles a condition followed by a jump taken if it is false, returning
+     * the position of the target to {@link #patch(int)}. A comparison jumps
+     * on its operands directly instead of pushing a boolean first.
+     */
+    private int emitCondition(Ast.Expr condition) {
+        if (condition instanceof Ast.Expr.Binary) {
+            Ast.Expr.Binary binary = (Ast.Expr.Binary) condition;
+            int opcode = Operators.getOpcode(binary.getOperator(), Bytecode.AND);
+            if (opcode >= Bytecode.LESS_THAN && opcode <= Bytecode.NOT_EQUAL) {
+                visit(binary.getLeft());
+                visit(binary.getRight());
+                return emitJump(opcode - Bytecode.LESS_THAN + Bytecode.JUMP_UNLESS_LESS_THAN, -2);
+            }
+        }
+        visit(condition);
+        return emitJump(Bytecode.JUMP_IF_FALSE, -1);
+    }
+
+    /**
+     * Pushes the value of the expression, or nil if there is none.
+     */
+    private void visitOptional(Ast.Expr expression) {
+        if (expression != null) {
+            visit(expression);
+        } else {
+            emit(Bytecode.NIL, 1);
+        }
+    }
+
+    /**
+     * Emits an instruction, adjusting the stack depth by its effect. For
+     * instructions which may jump, the effect is the one on both paths.
+     */
+    private void emit(int opcode, int effect, int... operands) {
+        if (size + operands.length + 1 > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + operands.length + 1));
+        }
+        code[size++] = opcode;
+        for (int operand : operands) {
+            code[size++] = operand;
+        }
+        depth += effect;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    /**
+     * Emits a jump with an unknown target, returning the position of the
+     * target to {@link #patch(int)}.
+     */
+    private int emitJump(int opcode, int effect) {
+        emit(opcode, effect, -1);
+        return size - 1;
+    }
+
+    private void patch(int position) {
+        code[position] = size;
+    }
+
+    private int allocate() {
+        maxLocals = Math.max(maxLocals, locals + 1);
+        return locals++;
+    }
+
+    private int name(String name) {
+        return names.computeIfAbsent(name, this::constant);
+    }
+
+    private int constant(Object constant) {
+        constants.add(constant);
+        return constants.size() - 1;
+    }
+
+    private Bytecode build(String name, List<String> parameters) {
+        return new Bytecode(name, parameters, Arrays.copyOf(code, size), constants.toArray(), maxLocals, maxDepth);
+    }
+
+}
@@ -0,0 +1,280 @@
+package plc.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a class file containing public static methods, as used by the
+ * {@link JitCompiler}. Classes use version 49 (Java 5), which the JVM
+ * verifies by type inference, so no stack map frames have to be computed;
+ * only the maximum stack size, which {@link Code} tracks from the stack
+ * effect of each instruction.
+ */
+final class ClassFileWriter {
+
+    static final int ICONST_0 = 0x03;
+    static final int ICONST_1 = 0x04;
+    static final int LCONST_0 = 0x09;
+    static final int LCONST_1 = 0x0A;
+    static final int LDC2_W = 0x14;
+    static final int ILOAD = 0x15;
+    static final int LLOAD = 0x16;
+    static final int ISTORE = 0x36;
+    static final int LSTORE = 0x37;
+    static final int POP = 0x57;
+    static final int POP2 = 0x58;
+    static final int ISUB = 0x64;
+    static final int IAND = 0x7E;
+    static final int LCMP = 0x94;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9A;
+    static final int IFLT = 0x9B;
+    static final int IFGE = 0x9C;
+    static final int IFGT = 0x9D;
+    static final int IFLE = 0x9E;
+    static final int IF_ICMPEQ = 0x9F;
+    static final int IF_ICMPNE = 0xA0;
+    static final int GOTO = 0xA7;
+    static final int IRETURN = 0xAC;
+    static final int LRETURN = 0xAD;
+    static final int INVOKESTATIC = 0xB8;
+    static final int ATHROW = 0xBF;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private final Map<String, Integer> constants = new HashMap<>();
+    private int poolCount = 1;
+    private final String name;
+    private final List<byte[]> methods = new ArrayList<>();
+
+    /**
+     * Creates a writer for the class with the given internal name, such as
+     * {@code Method1} or {@code plc/project/Example}.
+     */
+    ClassFileWriter(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Returns a new method whose code is added to the class by
+     * {@link Code#end(int)}.
+     */
+    Code method(String name, String descriptor) {
+        return new Code(name, descriptor);
+    }
+
+    byte[] toByteArray() {
+        try {
+            int self = classReference(name);
+            int object = classReference("java/lang/Object");
+            int code = utf8("Code");
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(49);
+            out.writeShort(poolCount);
+            pool.writeTo(out);
+            out.writeShort(0x0031); // public final super
+            out.writeShort(self);
+            out.writeShort(object);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.writeShort(0x0009); // public static
+                out.write(method, 0, 4); // name and descriptor
+                out.writeShort(1);
+                out.writeShort(code);
+                out.writeInt(method.length - 4);
+                out.write(method, 4, method.length - 4);
+            }
+            out.writeShort(0); // attributes
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    int utf8(String value) {
+        return constant("U" + value, CONSTANT_UTF8, 1, out -> out.writeUTF(value));
+    }
+
+    int classReference(String name) {
+        int utf8 = utf8(name);
+        return constant("C" + name, CONSTANT_CLASS, 1, out -> out.writeShort(utf8));
+    }
+
+    int methodReference(String owner, String name, String descriptor) {
+        int ownerIndex = classReference(owner);
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = constant("N" + name + ":" + descriptor, CONSTANT_NAME_AND_TYPE, 1, out -> {
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+        return constant("M" + owner + "." + name + ":" + descriptor, CONSTANT_METHODREF, 1, out -> {
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    /**
+     * Returns the index of a long constant, which takes two entries.
+     */
+    int longConstant(long value) {
+        return constant("J" + value, CONSTANT_LONG, 2, out -> out.writeLong(value));
+    }
+
+    private int constant(String key, int tag, int size, Entry entry) {
+        Integer index = constants.get(key);
+        if (index == null) {
+            try {
+                poolOut.writeByte(tag);
+                entry.write(poolOut);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            index = poolCount;
+            poolCount += size;
+            if (poolCount > 0xFFFF) {
+                throw new IllegalStateException("Too many constants in " + name + ".");
+            }
+            constants.put(key, index);
+        }
+        return index;
+    }
+
+    @FunctionalInterface
+    private interface Entry {
+
+        void write(DataOutputStream out) throws IOException;
+
+    }
+
+    /**
+     * The code of a method. Branches use labels created by
+     * {@link #label()}, which are patched once bound by {@link #mark(int)}.
+     */
+    final class Code {
+
+        private final int name;
+        private final int descriptor;
+        private byte[] code = new byte[64];
+        private int size = 0;
+        private int stack = 0;
+        private int maxStack = 0;
+        private final List<Integer> labels = new ArrayList<>();
+        private final List<int[]> jumps = new ArrayList<>();
+
+        private Code(String name, String descriptor) {
+            this.name = utf8(name);
+            this.descriptor = utf8(descriptor);
+        }
+
+        /**
+         * Emits an instruction and its operand bytes, adjusting the stack by
+         * the effect of the instruction.
+         */
+        void emit(int opcode, int effect, int... operands) {
+            write(opcode);
+            for (int operand : operands) {
+                write(operand);
+            }
+            stack += effect;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        /**
+         * Emits an instruction with an unsigned two byte operand, such as a
+         * constant pool index.
+         */
+        void emitShort(int opcode, int effect, int operand) {
+            emit(opcode, effect, operand >> 8, operand & 0xFF);
+        }
+
+        /**
+         * Emits a branch to a label. For a {@link #GOTO}, the stack size
+         * after it is unknown and must be restored by {@link #setStack(int)}
+         * when the following code is reachable.
+         */
+        void jump(int opcode, int effect, int label) {
+            jumps.add(new int[] {size, label});
+            emit(opcode, effect, 0, 0);
+        }
+
+        int label() {
+            labels.add(-1);
+            return labels.size() - 1;
+        }
+
+        void mark(int label) {
+            labels.set(label, size);
+        }
+
+        int getStack() {
+            return stack;
+        }
+
+        void setStack(int stack) {
+            this.stack = stack;
+        }
+
+        /**
+         * Patches the branches and adds the method to the class.
+         */
+        void end(int maxLocals) {
+            if (size > 0xFFFF) {
+                throw new IllegalStateException("Method too large.");
+            }
+            for (int[] jump : jumps) {
+                int offset = labels.get(jump[1]) - jump[0];
+                if (offset != (short) offset) {
+                    throw new IllegalStateException("Branch offset out of range.");
+                }
+                code[jump[0] + 1] = (byte) (offset >> 8);
+                code[jump[0] + 2] = (byte) offset;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            try {
+                out.writeShort(name);
+                out.writeShort(descriptor);
+                out.writeShort(maxStack);
+                out.writeShort(maxLocals);
+                out.writeInt(size);
+                out.write(code, 0, size);
+                out.writeShort(0); // exception table
+                out.writeShort(0); // attributes
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            methods.add(bytes.toByteArray());
+        }
+
+        private void write(int value) {
+            if (size == code.length) {
+                code = Arrays.copyOf(code, size * 2);
+            }
+            code[size++] = (byte) value;
+        }
+
+    }
+
+}
@@ -0,0 +1,365 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.BinaryOperator;
+
+/**
+ * Executes ASTs by first compiling each statement and expression into a tree
+ * of closures, so the dispatch on node types, the operators and the locals
+ * are resolved once rather than every time the {@link Interpreter} visits a
+ * node. Each binary operator compiles to a node calling its method in
+ * {@link Operators}, and each local compiles to a read or write of a fixed
+ * slot in the frame of the enclosing call, resolved through a {@link Block}.
+ * Globals and functions are looked up by name in the engine's scope.
+ *
+ * Statements complete with {@code null}, or with the value of a return
+ * statement, which each enclosing block passes on until it reaches the
+ * method.
+ */
+public final class ClosureCompiler implements ExecutionEngine {
+
+    private final Scope scope;
+
+    public ClosureCompiler(Scope parent) {
+        scope = new Scope(parent);
+        ExecutionEngine.defineBuiltins(scope);
+    }
+
+    @Override
+    public Scope getScope() {
+        return scope;
+    }
+
+    @Override
+    public Environment.PlcObject execute(Ast ast) {
+        Compilation compilation = new Compilation(true);
+        if (ast instanceof Ast.Source) {
+            for (Ast.Field field : ((Ast.Source) ast).getFields()) {
+                compilation.compile(field).execute(null);
+            }
+            for (Ast.Method method : ((Ast.Source) ast).getMethods()) {
+                compilation.compile(method).execute(null);
+            }
+            return scope.lookupFunction("main", 0).invoke(new ArrayList<>());
+        } else if (ast instanceof Ast.Expr) {
+            Expression expression = compilation.compile((Ast.Expr) ast);
+            return expression.evaluate(new Environment.PlcObject[compilation.slots]);
+        }
+        Statement statement = compilation.compile(ast);
+        if (statement.execute(new Environment.PlcObject[compilation.slots]) != null) {
+            throw new RuntimeException("Return outside of a method.");
+        }
+        return Environment.NIL;
+    }
+
+    /**
+     * A compiled expression, evaluated with the frame of the enclosing call.
+     */
+    @FunctionalInterface
+    private interface Expression {
+
+        Environment.PlcObject evaluate(Environment.PlcObject[] frame);
+
+    }
+
+    /**
+     * A compiled statement, returning {@code null} if it completes normally
+     * and otherwise the value being returned.
+     */
+    @FunctionalInterface
+    private interface Statement {
+
+        Environment.PlcObject execute(Environment.PlcObject[] frame);
+
+    }
+
+    /**
+     * The state of compiling a method or top level code, which is the
+     * enclosing block and the slots allocated for its locals.
+     */
+    private final class Compilation {
+
+        private Block<Integer> block;
+        private int top = 0;
+        private int slots = 0;
+
+        private Compilation(boolean global) {
+            block = new Block<>(null, global);
+        }
+
+        private Statement compile(Ast ast) {
+            if (ast instanceof Ast.Field) {
+                Ast.Field field = (Ast.Field) ast;
+                String name = field.getName();
+                Expression value = compileOptional(field.getValue().orElse(null));
+                return frame -> {
+                    scope.defineVariable(name, value.evaluate(frame));
+                    return null;
+                };
+            } else if (ast instanceof Ast.Method) {
+                return compileMethod((Ast.Method) ast);
+            } else if (ast instanceof Ast.Stmt.Expression) {
+                Expression expression = compile(((Ast.Stmt.Expression) ast).getExpression());
+                return frame -> {
+                    expression.evaluate(frame);
+                    return null;
+                };
+            } else if (ast instanceof Ast.Stmt.Declaration) {
+                return compileDeclaration((Ast.Stmt.Declaration) ast);
+            } else if (ast instanceof Ast.Stmt.Assignment) {
+                return compileAssignment((Ast.Stmt.Assignment) ast);
+            } else if (ast instanceof Ast.Stmt.If) {
+                Ast.Stmt.If statement = (Ast.Stmt.If) ast;
+                Expression condition = compile(statement.getCondition());
+                Statement then = compileBlock(statement.getThenStatements());
+                Statement otherwise = compileBlock(statement.getElseStatements());
+                return frame -> Operators.requireBoolean(condition.evaluate(frame)) ? then.execute(frame) : otherwise.execute(frame);
+            } else if (ast instanceof Ast.Stmt.While) {
+                Ast.Stmt.While statement = (Ast.Stmt.While) ast;
+                Expression condition = compile(statement.getCondition());
+                Statement body = compileBlock(statement.getStatements());
+                return frame -> {
+                    while (Operators.requireBoolean(condition.evaluate(frame))) {
+                        Environment.PlcObject result = body.execute(frame);
+                        if (result != null) {
+                            return result;
+                        }
+                    }
+                    return null;
+                };
+            } else if (ast instanceof Ast.Stmt.For) {
+                return compileFor((Ast.Stmt.For) ast);
+            } else if (ast instanceof Ast.Stmt.Return) {
+                Expression value = compile(((Ast.Stmt.Return) ast).getValue());
+                return value::evaluate;
+            } else {
+                throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+            }
+        }
+
+        /**
+         * Compiles a method into a statement which defines it. Methods are
+         * only defined at the top level, so the body can only refer to its
+         * own locals and to globals.
+         */
+        private Statement compileMethod(Ast.Method ast) {
+            Compilation compilation = new Compilation(false);
+            List<String> parameters = ast.getParameters();
+            for (String parameter : parameters) {
+                compilation.block.define(parameter, compilation.allocate());
+            }
+            Statement body = compilation.sequence(ast.getStatements());
+            boolean duplicate = new HashSet<>(parameters).size() != parameters.size();
+            int slots = compilation.slots;
+            String name = ast.getName();
+            return frame -> {
+                scope.defineFunction(name, parameters.size(), arguments -> {
+                    if (duplicate) {
+                        throw new RuntimeException("A parameter of " + name + " is already defined.");
+                    }
+                    Environment.PlcObject[] locals = new Environment.PlcObject[slots];
+                    for (int i = 0; i < arguments.size(); i++) {
+                        locals[i] = arguments.get(i);
+                    }
+                    Environment.PlcObject result = body.execute(locals);
+                    return result != null ? result : Environment.NIL;
+                });
+                return null;
+            };
+        }
+
+        /**
+         * Compiles a declaration, which defines a global at the top level and
+         * otherwise writes to a new slot. The local is only bound after its
+         * value, which may refer to the variable it shadows.
+         */
+        private Statement compileDeclaration(Ast.Stmt.Declaration ast) {
+            String name = ast.getName();
+            Expression value = compileOptional(ast.getValue().orElse(null));
+            if (block.isGlobal()) {
+                return frame -> {
+                    scope.defineVariable(name, value.evaluate(frame));
+                    return null;
+                };
+            } else if (block.isDefined(name)) {
+                return frame -> {
+                    value.evaluate(frame);
+                    throw new RuntimeException("The variable " + name + " is already defined in this scope.");
+                };
+            }
+            int slot = allocate();
+            block.define(name, slot);
+            return frame -> {
+                frame[slot] = value.evaluate(frame);
+                return null;
+            };
+        }
+
+        private Statement compileAssignment(Ast.Stmt.Assignment ast) {
+            if (!(ast.getReceiver() instanceof Ast.Expr.Access)) {
+                return frame -> {
+                    throw new RuntimeException("Invalid assignment receiver " + ast.getReceiver() + ".");
+                };
+            }
+            Ast.Expr.Access access = (Ast.Expr.Access) ast.getReceiver();
+            String name = access.getName();
+            Expression value = compile(ast.getValue());
+            if (access.getReceiver().isPresent()) {
+                Expression receiver = compile(access.getReceiver().get());
+                return frame -> {
+                    Environment.PlcObject result = value.evaluate(frame);
+                    receiver.evaluate(frame).setField(name, result);
+                    return null;
+                };
+            }
+            Integer slot = block.resolve(name);
+            if (slot != null) {
+                int index = slot;
+                return frame -> {
+                    frame[index] = value.evaluate(frame);
+                    return null;
+                };
+            }
+            return frame -> {
+                Environment.PlcObject result = value.evaluate(frame);
+                scope.lookupVariable(name).setValue(result);
+                return null;
+            };
+        }
+
+        /**
+         * Compiles a for loop, whose variable is defined in the same block as
+         * the statements of its body.
+         */
+        private Statement compileFor(Ast.Stmt.For ast) {
+            Expression iterable = compile(ast.getValue());
+            int mark = top;
+            block = new Block<>(block, false);
+            int slot = allocate();
+            block.define(ast.getName(), slot);
+            Statement body = sequence(ast.getStatements());
+            block = block.getParent();
+            top = mark;
+            return frame -> {
+                for (Object element : Operators.requireType(Iterable.class, iterable.evaluate(frame))) {
+                    frame[slot] = (Environment.PlcObject) element;
+                    Environment.PlcObject result = body.execute(frame);
+                    if (result != null) {
+                        return result;
+                    }
+                }
+                return null;
+            };
+        }
+
+        private Statement compileBlock(List<Ast.Stmt> statements) {
+            int mark = top;
+            block = new Block<>(block, false);
+            Statement statement = sequence(statements);
+            block = block.getParent();
+            top = mark;
+            return statement;
+        }
+
+        /**
+         * Compiles statements in the current block into a single statement.
+         */
+        private Statement sequence(List<? extends Ast> statements) {
+            Statement[] compiled = new Statement[statements.size()];
+            for (int i = 0; i < compiled.length; i++) {
+                compiled[i] = compile(statements.get(i));
+            }
+            if (compiled.length == 1) {
+                return compiled[0];
+            }
+            return frame -> {
+                for (Statement statement : compiled) {
+                    Environment.PlcObject result = statement.execute(frame);
+                    if (result != null) {
+                        return result;
+                    }
+                }
+                return null;
+            };
+        }
+
+        private Expression compileOptional(Ast.Expr expression) {
+            return expression != null ? compile(expression) : frame -> Environment.NIL;
+        }
+
+        private Expression compile(Ast.Expr ast) {
+            if (ast instanceof Ast.Expr.Literal) {
+                Object literal = ((Ast.Expr.Literal) ast).getLiteral();
+                Environment.PlcObject value = literal == null ? Environment.NIL : Environment.create(literal);
+                return frame -> value;
+            } else if (ast instanceof Ast.Expr.Group) {
+                return compile(((Ast.Expr.Group) ast).getExpression());
+            } else if (ast instanceof Ast.Expr.Binary) {
+                return compileBinary((Ast.Expr.Binary) ast);
+            } else if (ast instanceof Ast.Expr.Access) {
+                Ast.Expr.Access access = (Ast.Expr.Access) ast;
+                String name = access.getName();
+                if (access.getReceiver().isPresent()) {
+                    Expression receiver = compile(access.getReceiver().get());
+                    return frame -> receiver.evaluate(frame).getField(name).getValue();
+                }
+                Integer slot = block.resolve(name);
+                if (slot != null) {
+                    int index = slot;
+                    return frame -> frame[index];
+                }
+                return frame -> scope.lookupVariable(name).getValue();
+            } else if (ast instanceof Ast.Expr.Function) {
+                return compileFunction((Ast.Expr.Function) ast);
+            } else {
+                throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+            }
+        }
+
+        private Expression compileBinary(Ast.Expr.Binary ast) {
+            Expression left = compile(ast.getLeft());
+            Expression right = compile(ast.getRight());
+            if (ast.getOperator() == Ast.Expr.Binary.Operator.OR) {
+                return frame -> Environment.create(Operators.requireBoolean(left.evaluate(frame)) || Operators.requireBoolean(right.evaluate(frame)));
+            }
+            BinaryOperator<Environment.PlcObject> operation = Operators.getOperation(ast.getOperator());
+            return frame -> operation.apply(left.evaluate(frame), right.evaluate(frame));
+        }
+
+        private Expression compileFunction(Ast.Expr.Function ast) {
+            String name = ast.getName();
+            Expression[] arguments = new Expression[ast.getArguments().size()];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = compile(ast.getArguments().get(i));
+            }
+            if (ast.getReceiver().isPresent()) {
+                Expression receiver = compile(ast.getReceiver().get());
+                return frame -> {
+                    List<Environment.PlcObject> values = evaluate(arguments, frame);
+                    return receiver.evaluate(frame).callMethod(name, values);
+                };
+            }
+            return frame -> {
+                List<Environment.PlcObject> values = evaluate(arguments, frame);
+                return scope.lookupFunction(name, arguments.length).invoke(values);
+            };
+        }
+
+        private int allocate() {
+            slots = Math.max(slots, top + 1);
+            return top++;
+        }
+
+    }
+
+    private static List<Environment.PlcObject> evaluate(Expression[] expressions, Environment.PlcObject[] frame) {
+        List<Environment.PlcObject> values = new ArrayList<>(expressions.length);
+        for (Expression expression : expressions) {
+            values.add(expression.evaluate(frame));
+        }
+        return values;
+    }
+
+}
@@ -1,6 +1,9 @@
 package plc.project;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class Environment {
 
@@ -13,24 +16,154 @@ public final class Environment {
 
     });
 
-    private static final Map<String, Type> TYPES = new HashMap<>();
+    /**
+     * The global types, which are visible in every {@link Namespace}.
+     */
+    private static final Namespace TYPES = new Namespace(null);
+
+    /**
+     * Shared objects for the integers from {@code -128} to {@code 1023} and
+     * the booleans, which are immutable and created far more often than any
+     * other values.
+     */
+    private static final PlcObject[] INTEGERS = new PlcObject[1152];
+    private static final int INTEGERS_OFFSET = 128;
+    private static final PlcObject TRUE = new PlcObject(Type.BOOLEAN, null, true);
+    private static final PlcObject FALSE = new PlcObject(Type.BOOLEAN, null, false);
 
-    public static Type getType(String name) {
-        if (!TYPES.containsKey(name)) {
-            throw new RuntimeException("Unknown type " + name + ".");
+    static {
+        for (int i = 0; i < INTEGERS.length; i++) {
+            INTEGERS[i] = new PlcObject(i - INTEGERS_OFFSET, null);
         }
-        return TYPES.get(name);
     }
 
+    public static Type getType(String name) {
+        return TYPES.getType(name);
+    }
+
+    /**
+     * Registers a global type. Registration is safe from any thread, but a
+     * type may only be registered once.
+     */
     public static void registerType(Type type) {
-        if (TYPES.containsKey(type.getName())) {
-            throw new IllegalArgumentException("Duplicate registration of type " + type.getName() + ".");
-        }
-        TYPES.put(type.getName(), type);
+        TYPES.registerType(type);
     }
 
+    /**
+     * Creates an object for a value, whose type is the registered type for
+     * its class (or {@link Type#ANY} for any other class). Such objects have
+     * no fields, so they share their type instead of having their own scope.
+     */
     public static PlcObject create(Object value) {
-        return new PlcObject(new Scope(null), value);
+        if (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64) {
+            long integer = ((BigInteger) value).longValue();
+            return integer >= -INTEGERS_OFFSET && integer < INTEGERS.length - INTEGERS_OFFSET ? INTEGERS[(int) integer + INTEGERS_OFFSET] : new PlcObject(integer, (BigInteger) value);
+        } else if (value instanceof Boolean) {
+            return (Boolean) value ? TRUE : FALSE;
+        }
+        return new PlcObject(typeOf(value), null, value);
+    }
+
+    private static Type typeOf(Object value) {
+        if (value instanceof BigInteger) {
+            return Type.INTEGER;
+        } else if (value instanceof BigDecimal) {
+            return Type.DECIMAL;
+        } else if (value instanceof String) {
+            return Type.STRING;
+        } else if (value instanceof Character) {
+            return Type.CHARACTER;
+        }
+        return Type.ANY;
+    }
+
+    /**
+     * Creates an integer from a long, which is only converted to a
+     * {@link BigInteger} once its value is requested. See
+     * {@link PlcObject#isLong()}.
+     */
+    public static PlcObject createInteger(long value) {
+        if (value >= -INTEGERS_OFFSET && value < INTEGERS.length - INTEGERS_OFFSET) {
+            return INTEGERS[(int) value + INTEGERS_OFFSET];
+        }
+        return new PlcObject(value, null);
+    }
+
+    /**
+     * A set of types registered by a compilation unit in addition to the
+     * global types, so independent scripts can register types with the same
+     * names, possibly in parallel. Lookups and registration are thread safe:
+     * types are kept in a concurrent map, and a type is registered only if
+     * no type of the same name is visible yet. Registration takes no lock;
+     * instead the parents are checked again after the type is added, and it
+     * is removed again if one of them registered the name concurrently.
+     *
+     * A namespace does not know its children, so only registration in a
+     * namespace checks for conflicts, not registration in its parents. A
+     * global type registered after a unit already registered a type of the
+     * same name succeeds, but that unit keeps resolving the name to its own
+     * type. Global types should therefore be registered before compilation
+     * units start registering theirs.
+     */
+    public static final class Namespace {
+
+        private final Namespace parent;
+        private final Map<String, Type> types = new ConcurrentHashMap<>();
+
+        /**
+         * Creates a namespace for a compilation unit, inheriting the global
+         * types.
+         */
+        public Namespace() {
+            this(TYPES);
+        }
+
+        /**
+         * Creates a namespace inheriting the types of the given parent, or
+         * no types at all for a null parent.
+         */
+        Namespace(Namespace parent) {
+            this.parent = parent;
+        }
+
+        public Type getType(String name) {
+            for (Namespace namespace = this; namespace != null; namespace = namespace.parent) {
+                Type type = namespace.types.get(name);
+                if (type != null) {
+                    return type;
+                }
+            }
+            throw new RuntimeException("Unknown type " + name + ".");
+        }
+
+        /**
+         * Registers a type and builds its method table, throwing an {@link
+         * IllegalArgumentException} if a type with the same name is already
+         * visible. Global types may not be shadowed by a compilation unit.
+         */
+        public void registerType(Type type) {
+            if (isInherited(type.getName()) || types.putIfAbsent(type.getName(), type) != null) {
+                throw new IllegalArgumentException("Duplicate registration of type " + type.getName() + ".");
+            } else if (isInherited(type.getName())) {
+                types.remove(type.getName(), type);
+                throw new IllegalArgumentException("Duplicate registration of type " + type.getName() + ".");
+            }
+            type.buildMethods();
+        }
+
+        /**
+         * Returns whether a type with the given name is registered in one of
+         * the parents of this namespace.
+         */
+        private boolean isInherited(String name) {
+            for (Namespace namespace = parent; namespace != null; namespace = namespace.parent) {
+                if (namespace.types.containsKey(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
     }
 
     public static final class Type {
@@ -48,6 +181,7 @@ public final class Environment {
         private final String name;
         private final String jvmName;
         private final Scope scope;
+        private volatile MethodTable methods = null;
 
         public Type(String name, String jvmName, Scope scope) {
             this.name = name;
@@ -71,8 +205,36 @@ public final class Environment {
             return scope.lookupVariable(name);
         }
 
+        /**
+         * Returns the method with the given name and number of arguments,
+         * not counting the receiver, from a table of all methods visible in
+         * the type's scope and its parents. The table is built when the type
+         * is registered, and checking that it is still current is a single
+         * read of the scope's {@link Scope#getFunctionVersion() function
+         * version}. Only when a function has since been defined in the same
+         * tree of scopes is it rebuilt, so methods added to a type after it
+         * was registered are still found.
+         */
         public Function getMethod(String name, int arity) {
-            return scope.lookupFunction(name, arity + 1);
+            MethodTable table = methods;
+            if (table == null || table.version != scope.getFunctionVersion()) {
+                table = buildMethods();
+            }
+            Function[] overloads = table.methods.get(name);
+            if (overloads == null || arity + 1 >= overloads.length || overloads[arity + 1] == null) {
+                throw new RuntimeException("The function " + name + "/" + (arity + 1) + " is not defined in this scope.");
+            }
+            return overloads[arity + 1];
+        }
+
+        /**
+         * Builds the method table of this type from the functions defined so
+         * far, as registration does so dispatch finds it ready.
+         */
+        MethodTable buildMethods() {
+            MethodTable table = new MethodTable(scope.getFunctionVersion(), scope);
+            methods = table;
+            return table;
         }
 
         @Override
@@ -86,11 +248,48 @@ public final class Environment {
 
     }
 
+    /**
+     * The methods of a type, flattened from its scope and its parents so a
+     * method is found with a single lookup by name and then by arity
+     * (including the receiver). Methods in nearer scopes take precedence.
+     */
+    private static final class MethodTable {
+
+        private final int version;
+        private final Map<String, Function[]> methods = new HashMap<>();
+
+        private MethodTable(int version, Scope scope) {
+            this.version = version;
+            for (; scope != null; scope = scope.getParent()) {
+                for (Function function : scope.getFunctions()) {
+                    int arity = function.getParameterTypes().size();
+                    Function[] overloads = methods.get(function.getName());
+                    if (overloads == null || overloads.length <= arity) {
+                        overloads = overloads == null ? new Function[arity + 1] : Arrays.copyOf(overloads, arity + 1);
+                        methods.put(function.getName(), overloads);
+                    }
+                    if (overloads[arity] == null) {
+                        overloads[arity] = function;
+                    }
+                }
+            }
+        }
+
+    }
+
+    /**
+     * A value at runtime. Objects with fields have their own scope holding
+     * them (and any methods), while values created by
+     * {@link Environment#create(Object)} have none: looking up a field or
+     * calling a method on them fails as it would on an empty scope.
+     */
     public static final class PlcObject {
 
         private final Type type;
         private final Scope scope;
-        private final Object value;
+        private Object value;
+        private final boolean isLong;
+        private final long longValue;
 
         public PlcObject(Scope scope, Object value) {
             this(new Type("Unknown", "Unknown", scope), scope, value);
@@ -100,6 +299,20 @@ public final class Environment {
             this.type = type;
             this.scope = scope;
             this.value = value;
+            this.isLong = false;
+            this.longValue = 0;
+        }
+
+        /**
+         * Creates an integer which fits in a long, whose {@link BigInteger}
+         * value is created when first requested if not given.
+         */
+        private PlcObject(long longValue, BigInteger value) {
+            this.type = Type.INTEGER;
+            this.scope = null;
+            this.value = value;
+            this.isLong = true;
+            this.longValue = longValue;
         }
 
         public Type getType() {
@@ -107,35 +320,89 @@ public final class Environment {
         }
 
         public Variable getField(String name) {
+            if (scope == null) {
+                throw new RuntimeException("The variable " + name + " is not defined in this scope.");
+            }
             return scope.lookupVariable(name);
         }
 
         public void setField(String name, PlcObject value) {
-            scope.lookupVariable(name).setValue(value);
+            getField(name).setValue(value);
         }
 
         public PlcObject callMethod(String name, List<PlcObject> arguments) {
-            Function function = type.getMethod(name, arguments.size());
-            arguments = new ArrayList<>(arguments);
-            arguments.add(0, this);
-            return function.invoke(arguments);
+            if (scope == null) {
+                throw new RuntimeException("The function " + name + "/" + (arguments.size() + 1) + " is not defined in this scope.");
+            }
+            return type.getMethod(name, arguments.size()).invoke(new ReceiverArguments(this, arguments));
         }
 
         public Object getValue() {
+            if (value == null && isLong) {
+                value = BigInteger.valueOf(longValue);
+            }
             return value;
         }
 
+        /**
+         * Returns whether this is an integer which fits in a long, so
+         * operators can use {@link #longValue()} instead of the
+         * {@link BigInteger} value. Integers created with
+         * {@link Environment#create(Object)} always do if they fit.
+         */
+        public boolean isLong() {
+            return isLong;
+        }
+
+        public long longValue() {
+            return longValue;
+        }
+
+        /**
+         * Returns the class of the value, without creating the
+         * {@link BigInteger} value of an integer which fits in a long.
+         */
+        public Class<?> getValueClass() {
+            return isLong ? BigInteger.class : value == null ? Void.class : value.getClass();
+        }
+
         @Override
         public String toString() {
             return "Object{" +
                     "type=" + type +
-                    ", value=" + value +
+                    ", value=" + getValue() +
                     ", scope=" + scope +
                     '}';
         }
 
     }
 
+    /**
+     * The arguments of a method call with the receiver first, as a view of
+     * the other arguments rather than a copy.
+     */
+    private static final class ReceiverArguments extends AbstractList<PlcObject> implements RandomAccess {
+
+        private final PlcObject receiver;
+        private final List<PlcObject> arguments;
+
+        private ReceiverArguments(PlcObject receiver, List<PlcObject> arguments) {
+            this.receiver = receiver;
+            this.arguments = arguments;
+        }
+
+        @Override
+        public PlcObject get(int index) {
+            return index == 0 ? receiver : arguments.get(index - 1);
+        }
+
+        @Override
+        public int size() {
+            return arguments.size() + 1;
+        }
+
+    }
+
     public static final class Variable {
 
         private final String name;
@@ -261,6 +528,14 @@ public final class Environment {
     }
 
     static {
+        Type.ANY.scope.defineFunction("stringify", "toString", Arrays.asList(), Type.STRING, args -> Environment.NIL);
+        Type.COMPARABLE.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.COMPARABLE), Type.COMPARABLE, args -> Environment.NIL);
+        Type.INTEGER.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.INTEGER), Type.INTEGER, args -> Environment.NIL);
+        Type.DECIMAL.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.DECIMAL), Type.DECIMAL, args -> Environment.NIL);
+        Type.CHARACTER.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.CHARACTER), Type.CHARACTER, args -> Environment.NIL);
+        Type.STRING.scope.defineVariable("length", "length()", Type.INTEGER, Environment.NIL);
+        Type.STRING.scope.defineFunction("slice", "substring", Arrays.asList(Type.ANY, Type.INTEGER, Type.INTEGER), Type.STRING, args -> Environment.NIL);
+        Type.STRING.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.STRING), Type.STRING, args -> Environment.NIL);
         registerType(Type.ANY);
         registerType(Type.NIL);
         registerType(Type.INTEGER_ITERABLE);
@@ -270,14 +545,6 @@ public final class Environment {
         registerType(Type.DECIMAL);
         registerType(Type.CHARACTER);
         registerType(Type.STRING);
-        Type.ANY.scope.defineFunction("stringify", "toString", Arrays.asList(), Type.STRING, args -> Environment.NIL);
-        Type.COMPARABLE.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.COMPARABLE), Type.COMPARABLE, args -> Environment.NIL);
-        Type.INTEGER.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.INTEGER), Type.INTEGER, args -> Environment.NIL);
-        Type.DECIMAL.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.DECIMAL), Type.DECIMAL, args -> Environment.NIL);
-        Type.CHARACTER.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.CHARACTER), Type.CHARACTER, args -> Environment.NIL);
-        Type.STRING.scope.defineVariable("length", "length()", Type.INTEGER, Environment.NIL);
-        Type.STRING.scope.defineFunction("slice", "substring", Arrays.asList(Type.ANY, Type.INTEGER, Type.INTEGER), Type.STRING, args -> Environment.NIL);
-        Type.STRING.scope.defineFunction("compare", "compareTo", Arrays.asList(Type.ANY, Type.STRING), Type.STRING, args -> Environment.NIL);
     }
 
 }
@@ -0,0 +1,54 @@
+package plc.project;
+
+/**
+ * The escape sequences of string and character literals, shared by the
+ * lexers (which validate them) and the parser (which decodes them).
+ *
+ * Decoding is a single pass over the literal, and a literal without any
+ * backslash is returned as a plain slice of its source.
+ */
+public final class Escapes {
+
+    private static final char[] DECODED = new char[128];
+
+    static {
+        DECODED['b'] = '\b';
+        DECODED['n'] = '\n';
+        DECODED['r'] = '\r';
+        DECODED['t'] = '\t';
+        DECODED['\''] = '\'';
+        DECODED['"'] = '"';
+        DECODED['\\'] = '\\';
+    }
+
+    private Escapes() {}
+
+    /**
+     * Returns true if the character may follow a backslash in a literal.
+     */
+    public static boolean isEscape(char c) {
+        return c < DECODED.length && DECODED[c] != 0;
+    }
+
+    /**
+     * Returns the text of the range {@code [start, end)} of the source with
+     * escape sequences replaced by the characters they represent. The range
+     * must contain only valid escapes, as checked by the lexer.
+     */
+    public static String unescape(CharSequence source, int start, int end) {
+        int backslash = start;
+        while (backslash < end && source.charAt(backslash) != '\\') {
+            backslash++;
+        }
+        if (backslash == end) {
+            return source.subSequence(start, end).toString();
+        }
+        StringBuilder builder = new StringBuilder(end - start - 1).append(source, start, backslash);
+        for (int i = backslash; i < end; i++) {
+            char c = source.charAt(i);
+            builder.append(c == '\\' ? DECODED[source.charAt(++i)] : c);
+        }
+        return builder.toString();
+    }
+
+}
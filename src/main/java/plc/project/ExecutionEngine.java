@@ -0,0 +1,92 @@
+package plc.project;
+
+/**
+ * Executes ASTs within a scope. The tree walking {@link Interpreter} is the
+ * reference engine; the other engines, selected by {@link Kind}, compile the
+ * AST first and must produce the same results and side effects.
+ *
+ * As with the interpreter, executing a {@link Ast.Source} defines its fields
+ * and methods and returns the result of {@code main/0}, an expression returns
+ * its value, and anything else returns {@link Environment#NIL}.
+ */
+public interface ExecutionEngine {
+
+    /**
+     * The available engines.
+     */
+    enum Kind {
+        /**
+         * Walks the AST with the {@link Interpreter}.
+         */
+        INTERPRETER {
+            @Override
+            public ExecutionEngine create(Scope parent) {
+                return new Interpreter(parent);
+            }
+        },
+        /**
+         * Walks the AST with the {@link Interpreter}, compiling hot methods
+         * to JVM bytecode with the {@link JitCompiler}.
+         */
+        TIERED {
+            @Override
+            public ExecutionEngine create(Scope parent) {
+                return new Interpreter(parent, JitCompiler.DEFAULT_THRESHOLD);
+            }
+        },
+        /**
+         * Compiles the AST to {@link Bytecode} which is run by the
+         * {@link StackMachine}.
+         */
+        STACK_MACHINE {
+            @Override
+            public ExecutionEngine create(Scope parent) {
+                return new StackMachine(parent);
+            }
+        },
+        /**
+         * Compiles the AST to {@link RegisterCode}, with locals resolved to
+         * registers, which is run by the {@link RegisterMachine}.
+         */
+        REGISTER_MACHINE {
+            @Override
+            public ExecutionEngine create(Scope parent) {
+                return new RegisterMachine(parent);
+            }
+        },
+        /**
+         * Compiles the AST to a tree of closures run by the
+         * {@link ClosureCompiler}.
+         */
+        CLOSURE_COMPILER {
+            @Override
+            public ExecutionEngine create(Scope parent) {
+                return new ClosureCompiler(parent);
+            }
+        };
+
+        /**
+         * Creates an engine whose scope is a child of the given scope.
+         */
+        public abstract ExecutionEngine create(Scope parent);
+    }
+
+    Environment.PlcObject execute(Ast ast);
+
+    /**
+     * Returns the scope containing the definitions made by the engine.
+     */
+    Scope getScope();
+
+    /**
+     * Defines the built in functions available to every program in the given
+     * scope, which is currently only {@code print/1}.
+     */
+    static void defineBuiltins(Scope scope) {
+        scope.defineFunction("print", 1, args -> {
+            System.out.println(args.get(0).getValue());
+            return Environment.NIL;
+        });
+    }
+
+}
@@ -0,0 +1,199 @@
+package plc.project;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A program compiled from the Java source produced by the {@link Generator},
+ * entirely in memory: the source is written to a string, compiled with the
+ * system {@link JavaCompiler} through a file manager which keeps the class
+ * files in memory, and loaded by its own class loader.
+ *
+ * Compiled programs are cached by the SHA-256 hash of their source, so
+ * compiling the same script again only analyzes and generates it. The cache
+ * holds a {@link Future} for each source, which the first thread to request
+ * the source completes outside of any lock, so compiling one program never
+ * blocks requests for another, and concurrent requests for the same source
+ * wait for the one compilation. Only the {@link #CACHE_SIZE} most recently
+ * used programs are kept, and sources which fail to compile are not cached.
+ *
+ * The generated {@code Main.main(String[])} exits the JVM with the result of
+ * the program, so {@link #run()} instead calls the instance method
+ * {@code main()} it delegates to and returns the result.
+ */
+public final class GeneratedProgram {
+
+    static final int CACHE_SIZE = 64;
+
+    private static final Map<String, Future<GeneratedProgram>> CACHE = Collections.synchronizedMap(new LinkedHashMap<String, Future<GeneratedProgram>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Future<GeneratedProgram>> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+
+    private final String source;
+    private final Class<?> main;
+
+    private GeneratedProgram(String source, Class<?> main) {
+        this.source = source;
+        this.main = main;
+    }
+
+    /**
+     * Analyzes, generates and compiles a source, or returns the program
+     * previously compiled from the same generated source. Throws a
+     * {@link RuntimeException} if the source is invalid or the generated
+     * code does not compile.
+     */
+    public static GeneratedProgram compile(Ast.Source ast) {
+        new Analyzer(new Scope(null)).visit(ast);
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(ast);
+        String source = writer.toString();
+        String hash = hash(source);
+        FutureTask<GeneratedProgram> task = new FutureTask<>(() -> new GeneratedProgram(source, load(source)));
+        Future<GeneratedProgram> program = CACHE.putIfAbsent(hash, task);
+        if (program == null) {
+            task.run();
+            program = task;
+        }
+        try {
+            return program.get();
+        } catch (ExecutionException e) {
+            CACHE.remove(hash, program);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the program to compile.", e);
+        }
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Runs the program, returning the result of its main method.
+     */
+    public int run() {
+        try {
+            Constructor<?> constructor = main.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            Method method = main.getDeclaredMethod("main");
+            method.setAccessible(true);
+            return (Integer) method.invoke(constructor.newInstance());
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Generated class has no main method.", e);
+        }
+    }
+
+    private static String hash(String source) {
+        try {
+            StringBuilder builder = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8))) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static Class<?> load(String source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No Java compiler is available; run on a JDK.");
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+        StandardJavaFileManager standard = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        JavaFileManager manager = new ForwardingJavaFileManager<JavaFileManager>(standard) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String name, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("memory:///" + name.replace('.', '/') + kind.extension), kind) {
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        classes.put(name, bytes);
+                        return bytes;
+                    }
+                };
+            }
+        };
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("memory:///Main.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        boolean success = compiler.getTask(null, manager, diagnostics, Collections.singletonList("-proc:none"), null, Collections.singletonList(file)).call();
+        try {
+            manager.close();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        if (!success) {
+            StringBuilder message = new StringBuilder("Generated source does not compile:");
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                message.append(System.lineSeparator()).append(diagnostic.getLineNumber()).append(": ").append(diagnostic.getMessage(null));
+            }
+            throw new RuntimeException(message.toString());
+        }
+        ClassLoader loader = new ClassLoader(GeneratedProgram.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                ByteArrayOutputStream bytes = classes.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+            }
+        };
+        try {
+            return loader.loadClass("Main");
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Generated source has no Main class.", e);
+        }
+    }
+
+}
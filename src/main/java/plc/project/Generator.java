@@ -36,6 +36,9 @@ public final class Generator implements Ast.Visitor<Void> {
             newline(indent);
             visit(field);
         });
+        if (!ast.getFields().isEmpty()) {
+            newline(0);
+        }
         newline(indent);
         print("public static void main(String[] args) {");
         newline(indent);
@@ -54,20 +57,23 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Field ast) {
-        print(ast.getTypeName(), " ", ast.getVariable().getJvmName());
-        ast.getValue().ifPresent(value -> print(" = ", visit(value)));
+        print(ast.getVariable().getType().getJvmName(), " ", ast.getVariable().getJvmName());
+        ast.getValue().ifPresent(value -> print(" = ", value));
         print(";");
         return null;
     }
 
     @Override
     public Void visit(Ast.Method ast) {
-        print(Environment.getType(ast.getReturnTypeName().orElseThrow(RuntimeException::new)).getJvmName(), " ", ast.getName(), "(");
+        if (!ast.getReturnTypeName().isPresent()) {
+            throw new RuntimeException("Method " + ast.getName() + " has no return type.");
+        }
+        print(ast.getFunction().getReturnType().getJvmName(), " ", ast.getName(), "(");
         for (int i = 0; i < ast.getParameters().size(); i++) {
             if (i > 0) {
                 print(", ");
             }
-            print(ast.getParameterTypeNames().get(i), " ", ast.getParameters().get(i));
+            print(ast.getFunction().getParameterTypes().get(i).getJvmName(), " ", ast.getParameters().get(i));
         }
         print(") {");
         indent++;
@@ -97,7 +103,7 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Stmt.Assignment ast) {
-        print(visit(ast.getReceiver()), " = ", visit(ast.getValue()), ";");
+        print(ast.getReceiver(), " = ", ast.getValue(), ";");
         return null;
     }
 
@@ -172,7 +178,7 @@ public final class Generator implements Ast.Visitor<Void> {
 
     @Override
     public Void visit(Ast.Expr.Group ast) {
-        print("(", visit(ast.getExpression()), ")");
+        print("(", ast.getExpression(), ")");
         return null;
     }
 
@@ -181,12 +187,12 @@ public final class Generator implements Ast.Visitor<Void> {
         String operator;
         switch (ast.getOperator()) {
             default:
-                operator = ast.getOperator();
+                operator = ast.getOperator().getSymbol();
                 break;
-            case "AND":
+            case AND:
                 operator = "&&";
                 break;
-            case "OR":
+            case OR:
                 operator = "||";
                 break;
         }
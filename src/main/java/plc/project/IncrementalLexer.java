@@ -0,0 +1,75 @@
+package plc.project;
+
+/**
+ * Re-lexes an edited source by reusing the tokens of its previous version.
+ *
+ * Only tokens which could observe the edit are lexed again. Since the lexer
+ * looks at most two characters past the end of a token (e.g. checking for a
+ * decimal point followed by a digit), tokens which end more than one
+ * character before the edit are unaffected and are copied as-is. Lexing then
+ * restarts at the first affected token and continues until a token starts
+ * past the inserted text at a position where a token also started in the
+ * previous version. From
+ * there the lexer would behave exactly as before, so the remaining tokens are
+ * copied with their indices shifted by the change in length.
+ *
+ * The result is always identical to lexing the edited source from scratch.
+ * The previous buffer is left unchanged, including its symbol table: the new
+ * buffer interns identifiers into a copy of it, so the previous tokens can
+ * still be read concurrently (e.g. by a {@link ParallelParser}).
+ */
+public final class IncrementalLexer {
+
+    private IncrementalLexer() {}
+
+    /**
+     * Applies the edit replacing {@code removed} characters at {@code offset}
+     * with {@code inserted} to the source of the previous buffer, returning
+     * the tokens of the edited source. The previous buffer must have been
+     * created by the lexer (see {@link Lexer#lexBuffer()}).
+     */
+    public static TokenBuffer relex(TokenBuffer previous, int offset, int removed, String inserted) {
+        CharSequence source = previous.getSource();
+        if (!previous.isSliced()) {
+            throw new IllegalArgumentException("The tokens must be slices of their source.");
+        } else if (offset < 0 || removed < 0 || offset + removed > source.length()) {
+            throw new IndexOutOfBoundsException("Invalid edit of " + removed + " characters at " + offset + ".");
+        }
+        String edited = new StringBuilder(source.length() - removed + inserted.length())
+                .append(source, 0, offset)
+                .append(inserted)
+                .append(source, offset + removed, source.length())
+                .toString();
+        int shift = inserted.length() - removed;
+        int affected = firstAffected(previous, offset);
+        TokenBuffer buffer = new TokenBuffer(edited, previous.size() + 16, previous.getSymbols().copy());
+        buffer.copy(previous, 0, affected, 0);
+        int restart = affected < previous.size() ? Math.min(previous.getIndex(affected), offset) : offset;
+        TableLexer lexer = new TableLexer(edited, restart, edited.length());
+        while (lexer.skipWhitespace()) {
+            int position = lexer.getIndex();
+            if (position >= offset + inserted.length()) {
+                int match = previous.search(position - shift);
+                if (match < previous.size() && previous.getIndex(match) == position - shift) {
+                    buffer.copy(previous, match, previous.size(), shift);
+                    return buffer;
+                }
+            }
+            lexer.lexInto(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns the first token whose end (exclusive) is at least offset - 1,
+     * and could therefore be changed by an edit at the offset.
+     */
+    private static int firstAffected(TokenBuffer tokens, int offset) {
+        int token = tokens.search(offset - 1);
+        if (token > 0 && tokens.getIndex(token - 1) + tokens.getLength(token - 1) >= offset - 1) {
+            token--;
+        }
+        return token;
+    }
+
+}
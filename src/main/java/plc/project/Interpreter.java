@@ -1,27 +1,53 @@
 package plc.project;
 
-import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.math.RoundingMode;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
-public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
+public class Interpreter implements Ast.Visitor<Environment.PlcObject>, ExecutionEngine {
 
     private Scope scope = new Scope(null);
+    /**
+     * Identifies the sites cached by this interpreter on the AST, which may
+     * be shared with other interpreters, without the AST keeping a reference
+     * to the interpreter itself.
+     */
+    private final Object identity = new Object();
+    private final int threshold;
+    private Completion completion = Completion.NORMAL;
+    private Environment.PlcObject returned = Environment.NIL;
 
     public Interpreter(Scope parent) {
+        this(parent, -1);
+    }
+
+    /**
+     * Creates an interpreter which compiles methods with the
+     * {@link JitCompiler} once they have been called more often than the
+     * threshold, or never if it is negative.
+     */
+    public Interpreter(Scope parent, int threshold) {
         scope = new Scope(parent);
-        scope.defineFunction("print", 1, args -> {
-            System.out.println(args.get(0).getValue());
-            return Environment.NIL;
-        });
+        this.threshold = threshold;
+        ExecutionEngine.defineBuiltins(scope);
     }
 
+    @Override
     public Scope getScope() {
         return scope;
     }
 
+    @Override
+    public Environment.PlcObject execute(Ast ast) {
+        Environment.PlcObject result = visit(ast);
+        if (completion != Completion.NORMAL) {
+            completion = Completion.NORMAL;
+            throw new RuntimeException("Return outside of a method.");
+        }
+        return result;
+    }
+
     @Override
     public Environment.PlcObject visit(Ast.Source ast) {
         ast.getFields().forEach(this::visit);
@@ -38,21 +64,23 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Method ast) {
         Scope definition = scope;
-        scope.defineFunction(ast.getName(), ast.getParameters().size(), args -> {
-            Environment.PlcObject result = Environment.NIL;
+        Function<List<Environment.PlcObject>, Environment.PlcObject> function = args -> {
+            Scope caller = scope;
             try {
                 scope = new Scope(definition);
                 for (int i = 0; i < ast.getParameters().size(); i++) {
                     scope.defineVariable(ast.getParameters().get(i), args.get(i));
                 }
-                ast.getStatements().forEach(this::visit);
-            } catch (Return exception) {
-                result = exception.value;
+                if (execute(ast.getStatements())) {
+                    return Environment.NIL;
+                }
+                completion = Completion.NORMAL;
+                return returned;
             } finally {
-                scope = scope.getParent();
+                scope = caller;
             }
-            return result;
-        });
+        };
+        scope.defineFunction(ast.getName(), ast.getParameters().size(), threshold < 0 ? function : JitCompiler.tiered(ast, threshold, function));
         return Environment.NIL;
     }
 
@@ -75,7 +103,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         if (access.getReceiver().isPresent()) {
             visit(access.getReceiver().get()).setField(access.getName(), value);
         } else {
-            scope.lookupVariable(access.getName()).setValue(value);
+            lookupVariable(access).setValue(value);
         }
         return Environment.NIL;
     }
@@ -84,11 +112,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     public Environment.PlcObject visit(Ast.Stmt.If ast) {
         try {
             scope = new Scope(scope);
-            if (requireType(Boolean.class, visit(ast.getCondition()))) {
-                ast.getThenStatements().forEach(this::visit);
-            } else {
-                ast.getElseStatements().forEach(this::visit);
-            }
+            execute(Operators.requireBoolean(visit(ast.getCondition())) ? ast.getThenStatements() : ast.getElseStatements());
         } finally {
             scope = scope.getParent();
         }
@@ -97,24 +121,28 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Stmt.For ast) {
-        requireType(Iterable.class, visit(ast.getValue())).forEach(driver -> {
+        for (Object driver : Operators.requireType(Iterable.class, visit(ast.getValue()))) {
             try {
                 scope = new Scope(scope);
                 scope.defineVariable(ast.getName(), (Environment.PlcObject) driver);
-                ast.getStatements().forEach(this::visit);
+                if (!execute(ast.getStatements())) {
+                    break;
+                }
             } finally {
                 scope = scope.getParent();
             }
-        });
+        }
         return Environment.NIL;
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Stmt.While ast) {
-        while (requireType(Boolean.class, visit(ast.getCondition()))) {
+        while (Operators.requireBoolean(visit(ast.getCondition()))) {
             try {
                 scope = new Scope(scope);
-                ast.getStatements().forEach(this::visit);
+                if (!execute(ast.getStatements())) {
+                    break;
+                }
             } finally {
                 scope = scope.getParent();
             }
@@ -124,7 +152,9 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     @Override
     public Environment.PlcObject visit(Ast.Stmt.Return ast) {
-        throw new Return(visit(ast.getValue()));
+        returned = visit(ast.getValue());
+        completion = Completion.RETURN;
+        return Environment.NIL;
     }
 
     @Override
@@ -140,78 +170,15 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Expr.Binary ast) {
         Environment.PlcObject left = visit(ast.getLeft());
-        if (ast.getOperator().equals("OR")) {
-            return Environment.create(requireType(Boolean.class, left) || requireType(Boolean.class, visit(ast.getRight())));
+        if (ast.getOperator() == Ast.Expr.Binary.Operator.OR) {
+            return Environment.create(Operators.requireBoolean(left) || Operators.requireBoolean(visit(ast.getRight())));
         }
-        Environment.PlcObject right  = visit(ast.getRight());
-        switch (ast.getOperator()) {
-            case "AND":
-                return Environment.create(requireType(Boolean.class, left) && requireType(Boolean.class, right));
-            case "<":
-                if (left.getValue().getClass() == right.getValue().getClass()) {
-                    return Environment.create(requireType(Comparable.class, left).compareTo(requireType(Comparable.class, right)) < 0);
-                }
-                break;
-            case "<=":
-                if (left.getValue().getClass() == right.getValue().getClass()) {
-                    return Environment.create(requireType(Comparable.class, left).compareTo(requireType(Comparable.class, right)) <= 0);
-                }
-                break;
-            case ">":
-                if (left.getValue().getClass() == right.getValue().getClass()) {
-                    return Environment.create(requireType(Comparable.class, left).compareTo(requireType(Comparable.class, right)) > 0);
-                }
-            case ">=":
-                if (left.getValue().getClass() == right.getValue().getClass()) {
-                    return Environment.create(requireType(Comparable.class, left).compareTo(requireType(Comparable.class, right)) >= 0);
-                }
-                break;
-            case "==":
-                return Environment.create(left.getValue().equals(right.getValue()));
-            case "!=":
-                return Environment.create(!left.getValue().equals(right.getValue()));
-            case "+":
-                if (left.getValue() instanceof String || right.getValue() instanceof String) {
-                    return Environment.create(left.getValue().toString() + right.getValue().toString());
-                }
-                try {
-                    return Environment.create(requireType(BigInteger.class, left).add(requireType(BigInteger.class, right)));
-                } catch (RuntimeException ignored) {}
-                try {
-                    return Environment.create(requireType(BigDecimal.class, left).add(requireType(BigDecimal.class, right)));
-                } catch (RuntimeException ignored) {}
-                break;
-            case "-":
-                try {
-                    return Environment.create(requireType(BigInteger.class, left).subtract(requireType(BigInteger.class, right)));
-                } catch (RuntimeException ignored) {}
-                try {
-                    return Environment.create(requireType(BigDecimal.class, left).subtract(requireType(BigDecimal.class, right)));
-                } catch (RuntimeException ignored) {}
-                break;
-            case "*":
-                try {
-                    return Environment.create(requireType(BigInteger.class, left).multiply(requireType(BigInteger.class, right)));
-                } catch (RuntimeException ignored) {}
-                try {
-                    return Environment.create(requireType(BigDecimal.class, left).multiply(requireType(BigDecimal.class, right)));
-                } catch (RuntimeException ignored) {}
-                break;
-            case "/":
-                try {
-                    return Environment.create(requireType(BigInteger.class, left).divide(requireType(BigInteger.class, right)));
-                } catch (RuntimeException ignored) {}
-                try {
-                    return Environment.create(requireType(BigDecimal.class, left).divide(requireType(BigDecimal.class, right), RoundingMode.HALF_EVEN));
-                } catch (RuntimeException ignored) {}
-                break;
-        }
-        throw new RuntimeException();
+        return Operators.evaluate(ast, left, visit(ast.getRight()));
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Expr.Access ast) {
-        return (ast.getReceiver().isPresent() ? visit(ast.getReceiver().get()).getField(ast.getName()) : scope.lookupVariable(ast.getName())).getValue();
+        return (ast.getReceiver().isPresent() ? visit(ast.getReceiver().get()).getField(ast.getName()) : lookupVariable(ast)).getValue();
     }
 
     @Override
@@ -221,30 +188,101 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         if (ast.getReceiver().isPresent()) {
             return visit(ast.getReceiver().get()).callMethod(ast.getName(), arguments);
         } else {
-            return scope.lookupFunction(ast.getName(), ast.getArguments().size()).invoke(arguments);
+            CallSite site = ast.getCallSite();
+            int version = scope.getFunctionVersion();
+            Environment.Function function = site != null && site.identity == identity && site.version == version ? site.function.get() : null;
+            if (function == null) {
+                function = scope.lookupFunction(ast.getName(), ast.getArguments().size());
+                ast.setCallSite(new CallSite(identity, version, function));
+            }
+            return function.invoke(arguments);
         }
     }
 
     /**
-     * Helper function to ensure an object is of the appropriate type.
+     * Looks up the variable of an access without a receiver, starting at the
+     * depth it was found at last time if no scope with children has defined
+     * a variable since (see {@link Scope#getVersion()}). The current scope is
+     * the only one in the chain without children, so it is checked directly.
      */
-    private static <T> T requireType(Class<T> type, Environment.PlcObject object) {
-        if (type.isInstance(object.getValue())) {
-            return type.cast(object.getValue());
-        } else {
-            throw new RuntimeException("Expected type " + type.getName() + ", received " + object.getValue().getClass().getName() + ".");
+    private Environment.Variable lookupVariable(Ast.Expr.Access ast) {
+        AccessSite site = ast.getAccessSite();
+        int version = scope.getVersion();
+        if (site != null && site.identity == identity && site.version == version) {
+            Environment.Variable variable = scope.lookupVariable(ast.getName(), site.depth);
+            if (variable != null && (site.depth == 0 || scope.lookupVariable(ast.getName(), 0) == null)) {
+                return variable;
+            }
+        }
+        int depth = scope.resolveVariable(ast.getName());
+        ast.setAccessSite(new AccessSite(identity, version, depth));
+        return scope.lookupVariable(ast.getName(), depth);
+    }
+
+    /**
+     * Executes statements in the current scope, stopping early if one does
+     * not complete normally. Returns whether all statements completed
+     * normally; otherwise the completion is left for the enclosing statement
+     * which handles it, such as a method call for a return.
+     */
+    private boolean execute(List<Ast.Stmt> statements) {
+        for (Ast.Stmt statement : statements) {
+            visit(statement);
+            if (completion != Completion.NORMAL) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * How the last statement completed, replacing exceptions for control
+     * flow. A return sets the value in {@code returned}.
+     */
+    private enum Completion {
+        NORMAL,
+        RETURN
+    }
+
+    /**
+     * The function a call without a receiver resolved to, cached on the
+     * {@link Ast.Expr.Function} so later evaluations skip walking the scope
+     * chain. Functions are only defined in the global scope of an
+     * interpreter (or its parents), so the same call resolves to the same
+     * function from any scope of the same interpreter until another function
+     * is defined in the same tree of scopes, as tracked by {@link
+     * Scope#getFunctionVersion()}. The function is held weakly, since methods
+     * refer to the interpreter which defined them.
+     */
+    static final class CallSite {
+
+        private final Object identity;
+        private final int version;
+        private final WeakReference<Environment.Function> function;
+
+        private CallSite(Object identity, int version, Environment.Function function) {
+            this.identity = identity;
+            this.version = version;
+            this.function = new WeakReference<>(function);
         }
+
     }
 
     /**
-     * Exception class for returning values.
+     * The depth at which an access without a receiver found its variable,
+     * cached on the {@link Ast.Expr.Access} for {@link
+     * #lookupVariable(Ast.Expr.Access)}.
      */
-    private static class Return extends RuntimeException {
+    static final class AccessSite {
 
-        private final Environment.PlcObject value;
+        private final Object identity;
+        private final int version;
+        private final int depth;
 
-        private Return(Environment.PlcObject value) {
-            this.value = value;
+        private AccessSite(Object identity, int version, int depth) {
+            this.identity = identity;
+            this.version = version;
+            this.depth = depth;
         }
 
     }
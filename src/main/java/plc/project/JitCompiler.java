@@ -0,0 +1,459 @@
+package plc.project;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Compiles hot methods of the {@link Interpreter} straight to JVM bytecode.
+ *
+ * Once a method defined with a threshold (see {@link
+ * Interpreter#Interpreter(Scope, int)}) has been called more often than the
+ * threshold, its AST is compiled to a static method of a new class, written by
+ * the {@link ClassFileWriter} and loaded by its own {@link ClassLoader}.
+ *
+ * Only pure methods are compiled: the parameters and return type must be
+ * {@code Integer} or {@code Boolean}, the body may only use locals, integer
+ * and boolean literals, arithmetic, comparisons, logical operators, if and
+ * while statements and calls to the method itself. Integers are represented
+ * as longs with exact arithmetic. Since the method has no side effects, any
+ * case the compiled code cannot handle - an argument which is not a long, an
+ * overflow, a division by zero or falling off the end of the method - is
+ * handled by running the whole call in the interpreter instead, which then
+ * produces the exact result or error. Methods using anything else are never
+ * compiled and always interpreted.
+ */
+public final class JitCompiler {
+
+    /**
+     * The threshold used by {@link ExecutionEngine.Kind#TIERED}.
+     */
+    public static final int DEFAULT_THRESHOLD = 1000;
+
+    private static final AtomicInteger CLASSES = new AtomicInteger();
+    private static final String SELF = "plc/project/JitCompiler";
+
+    private final Ast.Method method;
+    private final ClassFileWriter writer;
+    private final ClassFileWriter.Code code;
+    private final List<Type> parameterTypes = new ArrayList<>();
+    private final Type returnType;
+    private final String descriptor;
+    private Block<Local> block = new Block<>(null, false);
+    private int locals = 0;
+
+    private JitCompiler(Ast.Method method) {
+        this.method = method;
+        StringBuilder descriptor = new StringBuilder("(");
+        for (String type : method.getParameterTypeNames()) {
+            parameterTypes.add(Type.of(type));
+            descriptor.append(Type.of(type).descriptor);
+        }
+        returnType = Type.of(method.getReturnTypeName().orElse("Nil"));
+        this.descriptor = descriptor.append(")").append(returnType.descriptor).toString();
+        writer = new ClassFileWriter("PlcMethod" + CLASSES.incrementAndGet());
+        code = writer.method(method.getName(), this.descriptor);
+    }
+
+    /**
+     * Wraps the interpreted function of a method so it is compiled once it
+     * has been called more often than the threshold. If the method cannot be
+     * compiled, the interpreted function is used from then on.
+     */
+    static Function<List<Environment.PlcObject>, Environment.PlcObject> tiered(Ast.Method method, int threshold, Function<List<Environment.PlcObject>, Environment.PlcObject> interpreted) {
+        return new Function<List<Environment.PlcObject>, Environment.PlcObject>() {
+
+            private int calls = 0;
+            private Compiled compiled = null;
+
+            @Override
+            public Environment.PlcObject apply(List<Environment.PlcObject> arguments) {
+                if (calls <= threshold && ++calls > threshold) {
+                    compiled = compile(method);
+                }
+                if (compiled != null) {
+                    Environment.PlcObject result = compiled.invoke(arguments);
+                    if (result != null) {
+                        return result;
+                    }
+                }
+                return interpreted.apply(arguments);
+            }
+
+        };
+    }
+
+    /**
+     * Compiles a method, returning null if it uses anything which cannot be
+     * compiled.
+     */
+    public static Compiled compile(Ast.Method method) {
+        try {
+            return new JitCompiler(method).compile();
+        } catch (Unsupported | IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private Compiled compile() {
+        for (int i = 0; i < parameterTypes.size(); i++) {
+            if (block.define(method.getParameters().get(i), new Local(locals, parameterTypes.get(i))) != null) {
+                throw new Unsupported();
+            }
+            locals += parameterTypes.get(i).size;
+        }
+        method.getStatements().forEach(this::compile);
+        code.emitShort(ClassFileWriter.INVOKESTATIC, 1, writer.methodReference(SELF, "deoptimize", "()Ljava/lang/RuntimeException;"));
+        code.emit(ClassFileWriter.ATHROW, -1);
+        if (locals > 0xFF) {
+            throw new Unsupported();
+        }
+        code.end(locals);
+        byte[] bytes = writer.toByteArray();
+        Class<?> type = new Loader().define(writer.getName(), bytes);
+        try {
+            List<Class<?>> parameters = new ArrayList<>();
+            parameterTypes.forEach(parameter -> parameters.add(parameter.type));
+            MethodHandle handle = MethodHandles.publicLookup().findStatic(type, method.getName(), MethodType.methodType(returnType.type, parameters));
+            return new Compiled(handle, parameterTypes, returnType);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private void compile(Ast.Stmt ast) {
+        if (ast instanceof Ast.Stmt.Expression) {
+            Type type = compile(((Ast.Stmt.Expression) ast).getExpression());
+            code.emit(type.size == 2 ? ClassFileWriter.POP2 : ClassFileWriter.POP, -type.size);
+        } else if (ast instanceof Ast.Stmt.Declaration) {
+            Ast.Stmt.Declaration declaration = (Ast.Stmt.Declaration) ast;
+            if (!declaration.getValue().isPresent() || block.isDefined(declaration.getName())) {
+                throw new Unsupported();
+            }
+            Type type = compile(declaration.getValue().get());
+            Local local = new Local(locals, type);
+            locals += type.size;
+            store(local);
+            block.define(declaration.getName(), local);
+        } else if (ast instanceof Ast.Stmt.Assignment) {
+            Ast.Stmt.Assignment assignment = (Ast.Stmt.Assignment) ast;
+            if (!(assignment.getReceiver() instanceof Ast.Expr.Access) || ((Ast.Expr.Access) assignment.getReceiver()).getReceiver().isPresent()) {
+                throw new Unsupported();
+            }
+            Local local = resolve(((Ast.Expr.Access) assignment.getReceiver()).getName());
+            require(local.type, compile(assignment.getValue()));
+            store(local);
+        } else if (ast instanceof Ast.Stmt.If) {
+            Ast.Stmt.If statement = (Ast.Stmt.If) ast;
+            int otherwise = code.label();
+            int end = code.label();
+            require(Type.BOOLEAN, compile(statement.getCondition()));
+            code.jump(ClassFileWriter.IFEQ, -1, otherwise);
+            compileBlock(statement.getThenStatements());
+            code.jump(ClassFileWriter.GOTO, 0, end);
+            code.mark(otherwise);
+            compileBlock(statement.getElseStatements());
+            code.mark(end);
+        } else if (ast instanceof Ast.Stmt.While) {
+            Ast.Stmt.While statement = (Ast.Stmt.While) ast;
+            int loop = code.label();
+            int end = code.label();
+            code.mark(loop);
+            require(Type.BOOLEAN, compile(statement.getCondition()));
+            code.jump(ClassFileWriter.IFEQ, -1, end);
+            compileBlock(statement.getStatements());
+            code.jump(ClassFileWriter.GOTO, 0, loop);
+            code.mark(end);
+        } else if (ast instanceof Ast.Stmt.Return) {
+            require(returnType, compile(((Ast.Stmt.Return) ast).getValue()));
+            code.emit(returnType == Type.INTEGER ? ClassFileWriter.LRETURN : ClassFileWriter.IRETURN, -returnType.size);
+        } else {
+            throw new Unsupported();
+        }
+    }
+
+    private void compileBlock(List<Ast.Stmt> statements) {
+        block = new Block<>(block, false);
+        statements.forEach(this::compile);
+        block = block.getParent();
+    }
+
+    /**
+     * Returns the local with the given name, which must not be a global.
+     */
+    private Local resolve(String name) {
+        Local local = block.resolve(name);
+        if (local == null) {
+            throw new Unsupported();
+        }
+        return local;
+    }
+
+    /**
+     * Compiles an expression, leaving its value on the stack, and returns its
+     * type. Booleans are represented as ints of {@code 0} or {@code 1}.
+     */
+    private Type compile(Ast.Expr ast) {
+        if (ast instanceof Ast.Expr.Literal) {
+            Object literal = ((Ast.Expr.Literal) ast).getLiteral();
+            if (literal instanceof Boolean) {
+                code.emit((Boolean) literal ? ClassFileWriter.ICONST_1 : ClassFileWriter.ICONST_0, 1);
+                return Type.BOOLEAN;
+            } else if (literal instanceof BigInteger && ((BigInteger) literal).bitLength() < 64) {
+                long value = ((BigInteger) literal).longValue();
+                if (value == 0 || value == 1) {
+                    code.emit(value == 0 ? ClassFileWriter.LCONST_0 : ClassFileWriter.LCONST_1, 2);
+                } else {
+                    code.emitShort(ClassFileWriter.LDC2_W, 2, writer.longConstant(value));
+                }
+                return Type.INTEGER;
+            }
+            throw new Unsupported();
+        } else if (ast instanceof Ast.Expr.Group) {
+            return compile(((Ast.Expr.Group) ast).getExpression());
+        } else if (ast instanceof Ast.Expr.Access) {
+            Ast.Expr.Access access = (Ast.Expr.Access) ast;
+            if (access.getReceiver().isPresent()) {
+                throw new Unsupported();
+            }
+            Local local = resolve(access.getName());
+            code.emit(local.type == Type.INTEGER ? ClassFileWriter.LLOAD : ClassFileWriter.ILOAD, local.type.size, local.index);
+            return local.type;
+        } else if (ast instanceof Ast.Expr.Binary) {
+            return compileBinary((Ast.Expr.Binary) ast);
+        } else if (ast instanceof Ast.Expr.Function) {
+            Ast.Expr.Function function = (Ast.Expr.Function) ast;
+            if (function.getReceiver().isPresent() || !function.getName().equals(method.getName()) || function.getArguments().size() != parameterTypes.size()) {
+                throw new Unsupported();
+            }
+            int size = 0;
+            for (int i = 0; i < parameterTypes.size(); i++) {
+                require(parameterTypes.get(i), compile(function.getArguments().get(i)));
+                size += parameterTypes.get(i).size;
+            }
+            code.emitShort(ClassFileWriter.INVOKESTATIC, returnType.size - size, writer.methodReference(writer.getName(), method.getName(), descriptor));
+            return returnType;
+        }
+        throw new Unsupported();
+    }
+
+    private Type compileBinary(Ast.Expr.Binary ast) {
+        Ast.Expr.Binary.Operator operator = ast.getOperator();
+        if (operator == Ast.Expr.Binary.Operator.OR) {
+            int right = code.label();
+            int end = code.label();
+            require(Type.BOOLEAN, compile(ast.getLeft()));
+            code.jump(ClassFileWriter.IFEQ, -1, right);
+            code.emit(ClassFileWriter.ICONST_1, 1);
+            code.jump(ClassFileWriter.GOTO, 0, end);
+            code.mark(right);
+            code.setStack(code.getStack() - 1);
+            require(Type.BOOLEAN, compile(ast.getRight()));
+            code.mark(end);
+            return Type.BOOLEAN;
+        }
+        Type left = compile(ast.getLeft());
+        Type right = compile(ast.getRight());
+        if (operator == Ast.Expr.Binary.Operator.AND) {
+            require(Type.BOOLEAN, left);
+            require(Type.BOOLEAN, right);
+            code.emit(ClassFileWriter.IAND, -1);
+            return Type.BOOLEAN;
+        } else if (left != right) {
+            throw new Unsupported();
+        }
+        switch (operator) {
+            case ADD: return arithmetic(left, "java/lang/Math", "addExact");
+            case SUBTRACT: return arithmetic(left, "java/lang/Math", "subtractExact");
+            case MULTIPLY: return arithmetic(left, "java/lang/Math", "multiplyExact");
+            case DIVIDE: return arithmetic(left, SELF, "divide");
+            case LESS_THAN: return comparison(left, ClassFileWriter.IFGE);
+            case LESS_THAN_OR_EQUAL: return comparison(left, ClassFileWriter.IFGT);
+            case GREATER_THAN: return comparison(left, ClassFileWriter.IFLE);
+            case GREATER_THAN_OR_EQUAL: return comparison(left, ClassFileWriter.IFLT);
+            case EQUAL: return comparison(left, ClassFileWriter.IFNE);
+            case NOT_EQUAL: return comparison(left, ClassFileWriter.IFEQ);
+            default: throw new Unsupported();
+        }
+    }
+
+    private Type arithmetic(Type type, String owner, String name) {
+        require(Type.INTEGER, type);
+        code.emitShort(ClassFileWriter.INVOKESTATIC, -2, writer.methodReference(owner, name, "(JJ)J"));
+        return Type.INTEGER;
+    }
+
+    /**
+     * Compiles a comparison of the two operands on the stack, given the
+     * branch taken when the comparison is false. Integers are compared with
+     * {@code lcmp}, while booleans may only be compared for equality by
+     * subtracting them.
+     */
+    private Type comparison(Type type, int negated) {
+        if (type == Type.INTEGER) {
+            code.emit(ClassFileWriter.LCMP, -3);
+        } else if (negated == ClassFileWriter.IFNE || negated == ClassFileWriter.IFEQ) {
+            code.emit(ClassFileWriter.ISUB, -1);
+        } else {
+            throw new Unsupported();
+        }
+        int otherwise = code.label();
+        int end = code.label();
+        code.jump(negated, -1, otherwise);
+        code.emit(ClassFileWriter.ICONST_1, 1);
+        code.jump(ClassFileWriter.GOTO, 0, end);
+        code.mark(otherwise);
+        code.setStack(code.getStack() - 1);
+        code.emit(ClassFileWriter.ICONST_0, 1);
+        code.mark(end);
+        return Type.BOOLEAN;
+    }
+
+    private void store(Local local) {
+        code.emit(local.type == Type.INTEGER ? ClassFileWriter.LSTORE : ClassFileWriter.ISTORE, -local.type.size, local.index);
+    }
+
+    private static void require(Type expected, Type type) {
+        if (expected != type) {
+            throw new Unsupported();
+        }
+    }
+
+    /**
+     * Divides two longs like {@link BigInteger#divide(BigInteger)}, throwing
+     * an {@link ArithmeticException} if the divisor is zero or the result
+     * overflows. Called by compiled code.
+     */
+    public static long divide(long left, long right) {
+        return right == -1 ? Math.negateExact(left) : left / right;
+    }
+
+    /**
+     * Returns the exception thrown by compiled code which reaches a case it
+     * cannot handle. Called by compiled code.
+     */
+    public static RuntimeException deoptimize() {
+        return new Deoptimization();
+    }
+
+    /**
+     * A compiled method.
+     */
+    public static final class Compiled {
+
+        private final MethodHandle handle;
+        private final List<Type> parameterTypes;
+        private final Type returnType;
+
+        private Compiled(MethodHandle handle, List<Type> parameterTypes, Type returnType) {
+            this.handle = handle;
+            this.parameterTypes = parameterTypes;
+            this.returnType = returnType;
+        }
+
+        /**
+         * Invokes the compiled method, returning null if the call must be
+         * interpreted instead.
+         */
+        public Environment.PlcObject invoke(List<Environment.PlcObject> arguments) {
+            Object[] values = new Object[arguments.size()];
+            for (int i = 0; i < values.length; i++) {
+                Object value = arguments.get(i).getValue();
+                if (parameterTypes.get(i) == Type.INTEGER && value instanceof BigInteger && ((BigInteger) value).bitLength() < 64) {
+                    values[i] = ((BigInteger) value).longValue();
+                } else if (parameterTypes.get(i) == Type.BOOLEAN && value instanceof Boolean) {
+                    values[i] = value;
+                } else {
+                    return null;
+                }
+            }
+            Object result;
+            try {
+                result = handle.invokeWithArguments(values);
+            } catch (ArithmeticException | Deoptimization e) {
+                return null;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new AssertionError(e);
+            }
+            return Environment.create(returnType == Type.INTEGER ? BigInteger.valueOf((Long) result) : result);
+        }
+
+    }
+
+    private enum Type {
+
+        INTEGER("J", 2, long.class),
+        BOOLEAN("Z", 1, boolean.class);
+
+        private final String descriptor;
+        private final int size;
+        private final Class<?> type;
+
+        Type(String descriptor, int size, Class<?> type) {
+            this.descriptor = descriptor;
+            this.size = size;
+            this.type = type;
+        }
+
+        private static Type of(String name) {
+            switch (name) {
+                case "Integer": return INTEGER;
+                case "Boolean": return BOOLEAN;
+                default: throw new Unsupported();
+            }
+        }
+
+    }
+
+    private static final class Local {
+
+        private final int index;
+        private final Type type;
+
+        private Local(int index, Type type) {
+            this.index = index;
+            this.type = type;
+        }
+
+    }
+
+    /**
+     * Loads each compiled class in its own loader, so it can be unloaded
+     * along with the method.
+     */
+    private static final class Loader extends ClassLoader {
+
+        private Loader() {
+            super(JitCompiler.class.getClassLoader());
+        }
+
+        private Class<?> define(String name, byte[] bytes) {
+            return defineClass(name.replace('/', '.'), bytes, 0, bytes.length);
+        }
+
+    }
+
+    private static final class Unsupported extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+    }
+
+    private static final class Deoptimization extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private Deoptimization() {
+            super(null, null, false, false);
+        }
+
+    }
+
+}
@@ -1,5 +1,7 @@
 package plc.project;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,8 +18,33 @@ import java.util.List;
  *
  * The {@link #peek(String...)} and {@link #match(String...)} functions are
  * helpers you need to use, they will make the implementation a lot easier.
+ *
+ * The regex based implementation in this class is the reference engine; the
+ * faster table driven and parallel engines producing identical tokens can be
+ * selected with {@link Engine}.
  */
 public final class Lexer {
+
+    /**
+     * The engine used by {@link #lex()}.
+     */
+    public enum Engine {
+        /**
+         * Matches each character against a {@link RegexPattern}.
+         */
+        REGEX,
+        /**
+         * Classifies characters through the precomputed tables of
+         * {@link TableLexer}.
+         */
+        TABLE,
+        /**
+         * Splits large inputs at newlines and lexes the chunks concurrently
+         * with {@link ParallelLexer}.
+         */
+        PARALLEL
+    }
+
     private final static class RegexPattern {
         final static String BACKSLASH = "[\\\\]";
         final static String DIGIT = "[0-9]";
@@ -27,7 +54,6 @@ public final class Lexer {
         final static String IDENTIFIER_INIT = "[A-Za-z_]";
         final static String IDENTIFIER_BODY = "[A-Za-z0-9_-]";
         final static String STRING = "[^\"\n\r]";
-        final static String ESCAPE_BODY = "[bnrt'\"\\\\]";
         final static String WHITESPACE = "[ \b\n\r\t]";
         final static String NONWHITESPACE = "[^ \b\n\r\t]";
         final static String OPERATOR = "[<>!=]";
@@ -36,9 +62,51 @@ public final class Lexer {
     }
 
     private final CharStream chars;
+    private final Engine engine;
 
     public Lexer(String input) {
+        this(input, Engine.REGEX);
+    }
+
+    public Lexer(String input, Engine engine) {
         chars = new CharStream(input);
+        this.engine = engine;
+    }
+
+    /**
+     * Lexes a file through a memory mapping instead of reading it into a
+     * string. The returned tokens reference the mapping and only materialize
+     * their literal when requested; see {@link MappedSource}.
+     */
+    public static List<Token> lex(Path path) throws IOException {
+        return new TableLexer(MappedSource.map(path), 0).lex();
+    }
+
+    /**
+     * Lexes a memory-mapped file into a {@link TokenBuffer}, which avoids
+     * creating any per-token objects.
+     */
+    public static TokenBuffer lexBuffer(Path path) throws IOException {
+        MappedSource source = MappedSource.map(path);
+        return new TableLexer(source, 0).lex(new TokenBuffer(source));
+    }
+
+    /**
+     * Lexes the input into a {@link TokenBuffer} rather than a list of tokens.
+     * The table and parallel engines write to buffers directly; the regex
+     * engine copies the positions of the tokens from {@link #lex()}.
+     */
+    public TokenBuffer lexBuffer() {
+        TokenBuffer buffer = new TokenBuffer(chars.input);
+        if (engine == Engine.TABLE) {
+            return new TableLexer(chars.input, chars.index, chars.input.length()).lex(buffer);
+        } else if (engine == Engine.PARALLEL) {
+            return new ParallelLexer(chars.input).lexBuffer();
+        }
+        for (Token token : lex()) {
+            buffer.add(token.getType(), token.getIndex(), token.getIndex() + token.getLength());
+        }
+        return buffer;
     }
 
     /**
@@ -46,6 +114,11 @@ public final class Lexer {
      * whitespace where appropriate.
      */
     public List<Token> lex() {
+        if (engine == Engine.TABLE) {
+            return new TableLexer(chars.input, chars.index, chars.input.length()).lex();
+        } else if (engine == Engine.PARALLEL) {
+            return new ParallelLexer(chars.input).lex();
+        }
         ArrayList<Token> tokens = new ArrayList<>();
         while (chars.has(0)) {
             if (match(RegexPattern.WHITESPACE)) {
@@ -145,9 +218,11 @@ public final class Lexer {
     }
 
     public void lexEscape() {
-        if (!match(RegexPattern.BACKSLASH, RegexPattern.ESCAPE_BODY)) {
+        if (!peek(RegexPattern.BACKSLASH) || !chars.has(1) || !Escapes.isEscape(chars.get(1))) {
             throw new ParseException("Invalid escape: ", chars.index);
         }
+        chars.advance();
+        chars.advance();
     }
 
     public Token lexOperator() {
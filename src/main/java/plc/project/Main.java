@@ -1,6 +1,5 @@
 package plc.project;
 
-import java.util.List;
 import java.util.Scanner;
 
 /**
@@ -27,12 +26,17 @@ import java.util.Scanner;
  * Therefore, you must provide valid source from the root of the grammar.
  * You can modify the solution to start from other nodes and test more specific expressions,
  * such as by starting at statement (parseStatement) or expression (parseExpression) levels.
+ *
+ * The source is run by the Interpreter unless another execution engine is given
+ * as the first program argument, e.g. STACK_MACHINE (see ExecutionEngine.Kind).
  */
 
 public class Main {
 
     public static void main( String args[] ) {
 
+        ExecutionEngine.Kind kind = args.length > 0 ? ExecutionEngine.Kind.valueOf(args[0]) : ExecutionEngine.Kind.INTERPRETER;
+
         // scanner for prompt input of source
         Scanner scanner = new Scanner(System.in);
         String line, source = "";
@@ -49,14 +53,14 @@ public class Main {
 
         System.out.println();
 
-        // lex source --> token list for the Parser
-        List<Token> tokens = new Lexer(source).lex();
+        // lex source --> token buffer for the Parser
+        TokenBuffer tokens = new Lexer(source).lexBuffer();
         
         // parse source --> AST for the Interpreter
         Ast.Source ast = new Parser(tokens).parseSource();
 
         // interpret source --> evaluate results
-        Environment.PlcObject plc = new Interpreter(new Scope(null)).visit(ast);
+        Environment.PlcObject plc = kind.create(new Scope(null)).execute(ast);
 
         System.out.println();
         System.out.println("Any PLCObject Results:");
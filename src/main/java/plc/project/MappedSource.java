@@ -0,0 +1,81 @@
+package plc.project;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A source file which is memory-mapped rather than read into a string. Each
+ * byte is treated as a single character (ISO-8859-1), which is exact for
+ * ASCII sources; token indices are byte offsets into the file.
+ *
+ * Tokens lexed from a mapped source only reference their range of the
+ * mapping, so their literal is copied out of the file only if it is requested
+ * through {@link Token#getLiteral()}. The mapping remains valid for as long as
+ * any of those tokens are reachable.
+ */
+public final class MappedSource implements CharSequence, TableLexer.Input {
+
+    private final MappedByteBuffer buffer;
+    private final int offset;
+    private final int length;
+
+    private MappedSource(MappedByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Maps the file at the given path, which must be smaller than 2GB.
+     */
+    public static MappedSource map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The file " + path + " is too large to be mapped.");
+            }
+            return new MappedSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), 0, (int) channel.size());
+        }
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new MappedSource(buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public boolean has(int index) {
+        return index < length;
+    }
+
+    @Override
+    public Token emit(Token.Type type, int start, int end) {
+        return new Token(type, this, start, end - start);
+    }
+
+    @Override
+    public void release(int index) {}
+
+}
@@ -0,0 +1,442 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BinaryOperator;
+
+/**
+ * The semantics of the binary operators, shared by the {@link Interpreter} and
+ * the other execution engines so they all evaluate operators identically.
+ *
+ * Each operator has its own method, which engines that resolve operators
+ * ahead of time can call directly, while {@link #binary(String,
+ * Environment.PlcObject, Environment.PlcObject)} dispatches on the operator.
+ * Note that {@code OR} short-circuits, so engines evaluate it themselves and
+ * only use {@link #requireBoolean(Environment.PlcObject)} here.
+ *
+ * Integers which fit in a long (see {@link Environment.PlcObject#isLong()})
+ * are computed with long arithmetic, falling back to {@link BigInteger} only
+ * if the result overflows, so counting loops need not allocate one per step.
+ *
+ * For the {@link Interpreter}, {@link #evaluate(Ast.Expr.Binary,
+ * Environment.PlcObject, Environment.PlcObject)} selects an
+ * {@link Implementation} by the operator and the runtime classes of the
+ * operands from a shared table, and caches it on the AST node so that an
+ * expression seeing the same classes again skips the type checks.
+ */
+public final class Operators {
+
+    private static final Map<Signature, Implementation> IMPLEMENTATIONS = new ConcurrentHashMap<>();
+
+    /**
+     * The operators with a method of their own, which is every operator but
+     * {@code OR}. The engines compile each of these to a dedicated
+     * instruction or closure through {@link #getOperation} and {@link
+     * #getOpcode}, so they all agree on which operators those are.
+     */
+    private static final Map<Ast.Expr.Binary.Operator, BinaryOperator<Environment.PlcObject>> OPERATIONS = new EnumMap<>(Ast.Expr.Binary.Operator.class);
+    private static final Map<Ast.Expr.Binary.Operator, Integer> OFFSETS = new EnumMap<>(Ast.Expr.Binary.Operator.class);
+
+    static {
+        OPERATIONS.put(Ast.Expr.Binary.Operator.AND, Operators::and);
+        OPERATIONS.put(Ast.Expr.Binary.Operator.LESS_THAN, Operators::lessThan);
+        OPERATIONS.put(Ast.Expr.Binary.Operator.LESS_THAN_OR_EQUAL, Operators::lessThanOrEqual);
+        OPERATIONS.put(Ast.Expr.Binary.Operator.GREATER_THAN, Operators::greaterThan);
+        OPERATIONS.put(Ast.Expr.Binary.Operator.GREATER_THAN_OR_EQUAL, Operators::greaterThanOrEqual);
+        OPERATIONS.put(Ast.Expr.Binary.Operator.EQUAL, Operators::equal);
+        OPERATIONS.put(Ast.Expr.Binary.Operator.NOT_EQUAL, Operators::notEqual);
+        OPERATIONS.put(Ast.Expr.Binary.Operator.ADD, Operators::add);
+        OPERATIONS.put(Ast.Expr.Binary.Operator.SUBTRACT, Operators::subtract);
+        OPERATIONS.put(Ast.Expr.Binary.Operator.MULTIPLY, Operators::multiply);
+        OPERATIONS.put(Ast.Expr.Binary.Operator.DIVIDE, Operators::divide);
+        for (Ast.Expr.Binary.Operator operator : OPERATIONS.keySet()) {
+            OFFSETS.put(operator, OFFSETS.size());
+        }
+    }
+
+    private Operators() {}
+
+    /**
+     * Returns the method of an operator, or null for {@code OR}, which
+     * short-circuits and so is compiled to jumps instead.
+     */
+    static BinaryOperator<Environment.PlcObject> getOperation(Ast.Expr.Binary.Operator operator) {
+        return OPERATIONS.get(operator);
+    }
+
+    /**
+     * Returns the opcode of an operator in an instruction set which has an
+     * instruction for each operator of {@link #getOperation}, in the order of
+     * the operators starting at the given opcode, as {@link Bytecode} and
+     * {@link RegisterCode} do from their {@code AND}. Returns -1 for
+     * {@code OR}.
+     */
+    static int getOpcode(Ast.Expr.Binary.Operator operator, int first) {
+        Integer offset = OFFSETS.get(operator);
+        return offset != null ? first + offset : -1;
+    }
+
+    /**
+     * Evaluates a binary expression other than {@code OR}, using the
+     * implementation cached on the node if it was resolved for the same
+     * operand classes and looking it up (and caching it) otherwise.
+     */
+    public static Environment.PlcObject evaluate(Ast.Expr.Binary ast, Environment.PlcObject left, Environment.PlcObject right) {
+        Class<?> leftClass = left.getValueClass();
+        Class<?> rightClass = right.getValueClass();
+        Implementation implementation = ast.getImplementation();
+        if (implementation == null || implementation.left != leftClass || implementation.right != rightClass) {
+            implementation = lookup(ast.getOperator(), leftClass, rightClass);
+            ast.setImplementation(implementation);
+        }
+        return implementation.apply(left, right);
+    }
+
+    /**
+     * Returns the implementation of an operator for operands of the given
+     * classes, as returned by {@link Environment.PlcObject#getValueClass()}.
+     * Implementations are resolved once per combination and shared.
+     */
+    public static Implementation lookup(Ast.Expr.Binary.Operator operator, Class<?> left, Class<?> right) {
+        return IMPLEMENTATIONS.computeIfAbsent(new Signature(operator, left, right), Operators::resolve);
+    }
+
+    /**
+     * Selects the implementation for a signature. Combinations with a
+     * dedicated helper skip the type checks entirely; anything else, including
+     * invalid operands, falls back to {@link #binary(String,
+     * Environment.PlcObject, Environment.PlcObject)}, which throws as usual.
+     */
+    private static Implementation resolve(Signature signature) {
+        Class<?> left = signature.left;
+        Class<?> right = signature.right;
+        boolean integers = left == BigInteger.class && right == BigInteger.class;
+        boolean decimals = left == BigDecimal.class && right == BigDecimal.class;
+        BinaryOperator<Environment.PlcObject> function = null;
+        switch (signature.operator) {
+            case AND:
+                if (left == Boolean.class && right == Boolean.class) {
+                    function = (l, r) -> Environment.create((Boolean) l.getValue() && (Boolean) r.getValue());
+                }
+                break;
+            case LESS_THAN:
+            case LESS_THAN_OR_EQUAL:
+            case GREATER_THAN:
+            case GREATER_THAN_OR_EQUAL:
+                if (left == right && Comparable.class.isAssignableFrom(left)) {
+                    function = comparison(signature.operator);
+                }
+                break;
+            case EQUAL:
+                function = Operators::equal;
+                break;
+            case NOT_EQUAL:
+                function = Operators::notEqual;
+                break;
+            case ADD:
+                if (left == String.class || right == String.class) {
+                    function = Operators::concatenate;
+                } else if (integers) {
+                    function = Operators::addIntegers;
+                } else if (decimals) {
+                    function = (l, r) -> Environment.create(((BigDecimal) l.getValue()).add((BigDecimal) r.getValue()));
+                }
+                break;
+            case SUBTRACT:
+                if (integers) {
+                    function = Operators::subtractIntegers;
+                } else if (decimals) {
+                    function = (l, r) -> Environment.create(((BigDecimal) l.getValue()).subtract((BigDecimal) r.getValue()));
+                }
+                break;
+            case MULTIPLY:
+                if (integers) {
+                    function = Operators::multiplyIntegers;
+                } else if (decimals) {
+                    function = (l, r) -> Environment.create(((BigDecimal) l.getValue()).multiply((BigDecimal) r.getValue()));
+                }
+                break;
+            case DIVIDE:
+                if (integers) {
+                    function = Operators::divideIntegers;
+                } else if (decimals) {
+                    function = Operators::divideDecimals;
+                }
+                break;
+        }
+        if (function == null) {
+            Ast.Expr.Binary.Operator operator = signature.operator;
+            function = (l, r) -> binary(operator, l, r);
+        }
+        return new Implementation(left, right, function);
+    }
+
+    private static BinaryOperator<Environment.PlcObject> comparison(Ast.Expr.Binary.Operator operator) {
+        switch (operator) {
+            case LESS_THAN: return (l, r) -> Environment.create(compareValues(l, r) < 0);
+            case LESS_THAN_OR_EQUAL: return (l, r) -> Environment.create(compareValues(l, r) <= 0);
+            case GREATER_THAN: return (l, r) -> Environment.create(compareValues(l, r) > 0);
+            default: return (l, r) -> Environment.create(compareValues(l, r) >= 0);
+        }
+    }
+
+    public static Environment.PlcObject binary(String operator, Environment.PlcObject left, Environment.PlcObject right) {
+        return binary(Ast.Expr.Binary.Operator.of(operator), left, right);
+    }
+
+    public static Environment.PlcObject binary(Ast.Expr.Binary.Operator operator, Environment.PlcObject left, Environment.PlcObject right) {
+        switch (operator) {
+            case AND: return and(left, right);
+            case OR: return Environment.create(requireBoolean(left) || requireBoolean(right));
+            case LESS_THAN: return lessThan(left, right);
+            case LESS_THAN_OR_EQUAL: return lessThanOrEqual(left, right);
+            case GREATER_THAN: return greaterThan(left, right);
+            case GREATER_THAN_OR_EQUAL: return greaterThanOrEqual(left, right);
+            case EQUAL: return equal(left, right);
+            case NOT_EQUAL: return notEqual(left, right);
+            case ADD: return add(left, right);
+            case SUBTRACT: return subtract(left, right);
+            case MULTIPLY: return multiply(left, right);
+            case DIVIDE: return divide(left, right);
+            default: throw new AssertionError(operator);
+        }
+    }
+
+    public static Environment.PlcObject and(Environment.PlcObject left, Environment.PlcObject right) {
+        return Environment.create(requireBoolean(left) && requireBoolean(right));
+    }
+
+    public static Environment.PlcObject lessThan(Environment.PlcObject left, Environment.PlcObject right) {
+        return Environment.create(compare(left, right) < 0);
+    }
+
+    public static Environment.PlcObject lessThanOrEqual(Environment.PlcObject left, Environment.PlcObject right) {
+        return Environment.create(compare(left, right) <= 0);
+    }
+
+    public static Environment.PlcObject greaterThan(Environment.PlcObject left, Environment.PlcObject right) {
+        return Environment.create(compare(left, right) > 0);
+    }
+
+    public static Environment.PlcObject greaterThanOrEqual(Environment.PlcObject left, Environment.PlcObject right) {
+        return Environment.create(compare(left, right) >= 0);
+    }
+
+    public static Environment.PlcObject equal(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            return Environment.create(left.longValue() == right.longValue());
+        }
+        return Environment.create(left.getValue().equals(right.getValue()));
+    }
+
+    public static Environment.PlcObject notEqual(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            return Environment.create(left.longValue() != right.longValue());
+        }
+        return Environment.create(!left.getValue().equals(right.getValue()));
+    }
+
+    public static Environment.PlcObject add(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            return addIntegers(left, right);
+        } else if (left.getValue() instanceof String || right.getValue() instanceof String) {
+            return concatenate(left, right);
+        } else if (left.getValue() instanceof BigInteger && right.getValue() instanceof BigInteger) {
+            return addIntegers(left, right);
+        } else if (left.getValue() instanceof BigDecimal && right.getValue() instanceof BigDecimal) {
+            return Environment.create(((BigDecimal) left.getValue()).add((BigDecimal) right.getValue()));
+        }
+        throw new RuntimeException();
+    }
+
+    public static Environment.PlcObject subtract(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            return subtractIntegers(left, right);
+        } else if (left.getValue() instanceof BigInteger && right.getValue() instanceof BigInteger) {
+            return subtractIntegers(left, right);
+        } else if (left.getValue() instanceof BigDecimal && right.getValue() instanceof BigDecimal) {
+            return Environment.create(((BigDecimal) left.getValue()).subtract((BigDecimal) right.getValue()));
+        }
+        throw new RuntimeException();
+    }
+
+    public static Environment.PlcObject multiply(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            return multiplyIntegers(left, right);
+        } else if (left.getValue() instanceof BigInteger && right.getValue() instanceof BigInteger) {
+            return multiplyIntegers(left, right);
+        } else if (left.getValue() instanceof BigDecimal && right.getValue() instanceof BigDecimal) {
+            return Environment.create(((BigDecimal) left.getValue()).multiply((BigDecimal) right.getValue()));
+        }
+        throw new RuntimeException();
+    }
+
+    /**
+     * Divides integers (rounding towards zero) or decimals (rounding half
+     * even to the scale of the left operand). Dividing by zero throws a
+     * {@link RuntimeException} like any other invalid operands.
+     */
+    public static Environment.PlcObject divide(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            return divideIntegers(left, right);
+        } else if (left.getValue() instanceof BigInteger && right.getValue() instanceof BigInteger) {
+            return divideIntegers(left, right);
+        } else if (left.getValue() instanceof BigDecimal && right.getValue() instanceof BigDecimal) {
+            return divideDecimals(left, right);
+        }
+        throw new RuntimeException();
+    }
+
+    private static Environment.PlcObject concatenate(Environment.PlcObject left, Environment.PlcObject right) {
+        return Environment.create(left.getValue().toString() + right.getValue().toString());
+    }
+
+    private static Environment.PlcObject addIntegers(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            long result = left.longValue() + right.longValue();
+            if (((left.longValue() ^ result) & (right.longValue() ^ result)) >= 0) {
+                return Environment.createInteger(result);
+            }
+        }
+        return Environment.create(((BigInteger) left.getValue()).add((BigInteger) right.getValue()));
+    }
+
+    private static Environment.PlcObject subtractIntegers(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            long result = left.longValue() - right.longValue();
+            if (((left.longValue() ^ right.longValue()) & (left.longValue() ^ result)) >= 0) {
+                return Environment.createInteger(result);
+            }
+        }
+        return Environment.create(((BigInteger) left.getValue()).subtract((BigInteger) right.getValue()));
+    }
+
+    private static Environment.PlcObject multiplyIntegers(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            try {
+                return Environment.createInteger(Math.multiplyExact(left.longValue(), right.longValue()));
+            } catch (ArithmeticException overflow) {
+                //Fall back to BigInteger multiplication.
+            }
+        }
+        return Environment.create(((BigInteger) left.getValue()).multiply((BigInteger) right.getValue()));
+    }
+
+    private static Environment.PlcObject divideIntegers(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong() && right.longValue() != 0 && (left.longValue() != Long.MIN_VALUE || right.longValue() != -1)) {
+            return Environment.createInteger(left.longValue() / right.longValue());
+        } else if (((BigInteger) right.getValue()).signum() == 0) {
+            throw new RuntimeException();
+        }
+        return Environment.create(((BigInteger) left.getValue()).divide((BigInteger) right.getValue()));
+    }
+
+    private static Environment.PlcObject divideDecimals(Environment.PlcObject left, Environment.PlcObject right) {
+        if (((BigDecimal) right.getValue()).signum() == 0) {
+            throw new RuntimeException();
+        }
+        return Environment.create(((BigDecimal) left.getValue()).divide((BigDecimal) right.getValue(), RoundingMode.HALF_EVEN));
+    }
+
+    /**
+     * Compares two values of the same class, which must be {@link Comparable}.
+     */
+    private static int compare(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            return Long.compare(left.longValue(), right.longValue());
+        } else if (left.getValue().getClass() != right.getValue().getClass()) {
+            throw new RuntimeException();
+        }
+        requireType(Comparable.class, left);
+        return compareValues(left, right);
+    }
+
+    /**
+     * Compares two values known to be of the same {@link Comparable} class.
+     */
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Environment.PlcObject left, Environment.PlcObject right) {
+        if (left.isLong() && right.isLong()) {
+            return Long.compare(left.longValue(), right.longValue());
+        }
+        return ((Comparable<Object>) left.getValue()).compareTo(right.getValue());
+    }
+
+    public static boolean requireBoolean(Environment.PlcObject object) {
+        return requireType(Boolean.class, object);
+    }
+
+    /**
+     * Helper function to ensure an object is of the appropriate type.
+     */
+    public static <T> T requireType(Class<T> type, Environment.PlcObject object) {
+        if (type.isInstance(object.getValue())) {
+            return type.cast(object.getValue());
+        } else {
+            throw new RuntimeException("Expected type " + type.getName() + ", received " + object.getValue().getClass().getName() + ".");
+        }
+    }
+
+    /**
+     * An operator specialized to the classes of its operands, which it must
+     * only be applied to.
+     */
+    public static final class Implementation {
+
+        private final Class<?> left;
+        private final Class<?> right;
+        private final BinaryOperator<Environment.PlcObject> function;
+
+        private Implementation(Class<?> left, Class<?> right, BinaryOperator<Environment.PlcObject> function) {
+            this.left = left;
+            this.right = right;
+            this.function = function;
+        }
+
+        public Class<?> getLeft() {
+            return left;
+        }
+
+        public Class<?> getRight() {
+            return right;
+        }
+
+        public Environment.PlcObject apply(Environment.PlcObject left, Environment.PlcObject right) {
+            return function.apply(left, right);
+        }
+
+    }
+
+    private static final class Signature {
+
+        private final Ast.Expr.Binary.Operator operator;
+        private final Class<?> left;
+        private final Class<?> right;
+
+        private Signature(Ast.Expr.Binary.Operator operator, Class<?> left, Class<?> right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Signature &&
+                    operator == ((Signature) obj).operator &&
+                    left == ((Signature) obj).left &&
+                    right == ((Signature) obj).right;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(operator, left, right);
+        }
+
+    }
+
+}
@@ -0,0 +1,101 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Lexes large inputs by splitting them into chunks which are lexed in
+ * parallel with the table driven {@link TableLexer}, producing the same
+ * tokens as lexing the whole input sequentially.
+ *
+ * Chunks are split just after a newline. No token can contain a newline
+ * (string and character literals reject them, and they are whitespace
+ * otherwise), and no token can look past a newline since every lookahead
+ * pattern would have to match the newline first. A newline is therefore
+ * always a token boundary, so chunks can be lexed independently with indices
+ * relative to the whole input and need no correction when they are joined.
+ *
+ * If several chunks fail, the error of the first one is thrown, which is the
+ * same error the sequential lexer would have reached.
+ */
+public final class ParallelLexer {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    private final CharSequence input;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    public ParallelLexer(CharSequence input) {
+        this(input, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public ParallelLexer(CharSequence input, int chunkSize, ForkJoinPool pool) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Invalid chunk size " + chunkSize + ".");
+        }
+        this.input = input;
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+    }
+
+    public List<Token> lex() {
+        List<List<Token>> chunks = lexChunks(chunk -> new TableLexer(input, chunk[0], chunk[1]).lex());
+        List<Token> tokens = new ArrayList<>(chunks.stream().mapToInt(List::size).sum());
+        chunks.forEach(tokens::addAll);
+        return tokens;
+    }
+
+    public TokenBuffer lexBuffer() {
+        List<TokenBuffer> chunks = lexChunks(chunk -> new TableLexer(input, chunk[0], chunk[1]).lex(new TokenBuffer(input)));
+        TokenBuffer buffer = new TokenBuffer(input, chunks.stream().mapToInt(TokenBuffer::size).sum());
+        chunks.forEach(buffer::append);
+        return buffer;
+    }
+
+    /**
+     * Lexes each chunk with the given function, returning the results in
+     * order. A single chunk is lexed on the calling thread.
+     */
+    private <T> List<T> lexChunks(Function<int[], T> lexer) {
+        List<int[]> chunks = split();
+        List<T> results = new ArrayList<>(chunks.size());
+        if (chunks.size() == 1) {
+            results.add(lexer.apply(chunks.get(0)));
+            return results;
+        }
+        List<ForkJoinTask<T>> tasks = new ArrayList<>(chunks.size());
+        for (int[] chunk : chunks) {
+            tasks.add(pool.submit(() -> lexer.apply(chunk)));
+        }
+        for (ForkJoinTask<T> task : tasks) {
+            results.add(task.join()); // throws the first failure in order
+        }
+        return results;
+    }
+
+    /**
+     * Splits the input into {@code [start, end)} ranges of roughly the chunk
+     * size, each ending just after a newline (or at the end of the input).
+     */
+    private List<int[]> split() {
+        List<int[]> chunks = new ArrayList<>();
+        int start = 0;
+        while (input.length() - start > chunkSize) {
+            int end = start + chunkSize;
+            while (end < input.length() && input.charAt(end - 1) != '\n') {
+                end++;
+            }
+            chunks.add(new int[] {start, end});
+            start = end;
+        }
+        if (start < input.length() || chunks.isEmpty()) {
+            chunks.add(new int[] {start, input.length()});
+        }
+        return chunks;
+    }
+
+}
@@ -0,0 +1,111 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses the methods of a large source in parallel, producing the same
+ * {@link Ast.Source} as {@link Parser#parseSource()}.
+ *
+ * The tokens are first scanned for the {@code DEF} of each top-level method by
+ * matching {@code DO} and {@code END} keywords, and split into chunks of
+ * methods at those boundaries. Each chunk is then parsed as a source of its
+ * own with a {@link Parser} limited to its tokens.
+ *
+ * The scan only looks at keywords, so it can be wrong (e.g. for an {@code END}
+ * used as a variable). This is safe: a chunk which parses successfully is
+ * exactly a sequence of methods, which the sequential parser would have parsed
+ * the same way, while a wrong boundary causes its chunk to fail. If any chunk
+ * fails, the whole source is parsed sequentially instead, which also ensures
+ * errors are the same as those of the sequential parser.
+ */
+public final class ParallelParser {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 14;
+
+    private final TokenBuffer tokens;
+    private final Parser.Engine engine;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    public ParallelParser(TokenBuffer tokens) {
+        this(tokens, Parser.Engine.DESCENT, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public ParallelParser(TokenBuffer tokens, Parser.Engine engine, int chunkSize, ForkJoinPool pool) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Invalid chunk size " + chunkSize + ".");
+        }
+        this.tokens = tokens;
+        this.engine = engine;
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+    }
+
+    public Ast.Source parseSource() throws ParseException {
+        Ast.Source source = parseChunks();
+        return source != null ? source : new Parser(tokens, engine).parseSource();
+    }
+
+    /**
+     * Parses the chunks concurrently and joins them, returning {@code null}
+     * if the source has only one chunk or any chunk fails to parse, in which
+     * case it has to be parsed sequentially.
+     */
+    Ast.Source parseChunks() {
+        List<Integer> boundaries = split();
+        if (boundaries.size() <= 2) {
+            return null;
+        }
+        List<ForkJoinTask<Ast.Source>> tasks = new ArrayList<>(boundaries.size() - 1);
+        for (int i = 0; i + 1 < boundaries.size(); i++) {
+            int start = boundaries.get(i);
+            int end = boundaries.get(i + 1);
+            tasks.add(pool.submit(() -> new Parser(tokens, engine, start, end).parseSource()));
+        }
+        List<Ast.Field> fields = null;
+        List<Ast.Method> methods = new ArrayList<>();
+        try {
+            for (ForkJoinTask<Ast.Source> task : tasks) {
+                Ast.Source chunk = task.join();
+                if (fields == null) {
+                    fields = chunk.getFields();
+                }
+                methods.addAll(chunk.getMethods());
+            }
+        } catch (ParseException e) {
+            tasks.forEach(task -> task.cancel(false));
+            return null;
+        }
+        return new Ast.Source(fields, methods);
+    }
+
+    /**
+     * Returns the token indices splitting the source into chunks, starting
+     * with 0 and ending with the number of tokens. The first chunk contains
+     * the fields, and every other chunk starts at the {@code DEF} of a method
+     * with roughly the chunk size of tokens.
+     */
+    private List<Integer> split() {
+        List<Integer> boundaries = new ArrayList<>();
+        boundaries.add(0);
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            int symbol = tokens.getSymbol(i);
+            if (symbol == SymbolTable.DO) {
+                depth++;
+            } else if (symbol == SymbolTable.END && depth > 0) {
+                depth--;
+            } else if (symbol == SymbolTable.DEF && depth == 0 && i - start >= chunkSize) {
+                boundaries.add(i);
+                start = i;
+            }
+        }
+        boundaries.add(tokens.size());
+        return boundaries;
+    }
+
+}
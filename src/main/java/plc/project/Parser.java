@@ -18,13 +18,79 @@ import java.util.Optional;
  * This type of parser is called <em>recursive descent</em>. Each rule in our
  * grammar will have it's own function, and reference to other rules correspond
  * to calling that functions.
+ *
+ * Binary expressions can alternatively be parsed by precedence climbing, which
+ * is selected with {@link Engine} and produces identical trees.
+ *
+ * By default parsing stops at the first {@link ParseException}. Passing a list
+ * of diagnostics to {@link #parseSource(List)} instead recovers from errors,
+ * collecting every error in one pass (see {@link #synchronize()}).
  */
 public final class Parser {
 
+    /**
+     * The engine used to parse binary expressions.
+     */
+    public enum Engine {
+        /**
+         * Descends through one method per precedence level, from
+         * {@link #parseLogicalExpression()} to
+         * {@link #parseMultiplicativeExpression()}.
+         */
+        DESCENT,
+        /**
+         * Climbs a precedence table, classifying each operator token once
+         * (see {@link #peekOperator()}).
+         */
+        PRECEDENCE
+    }
+
+    /**
+     * Precedences of the binary operators for {@link Engine#PRECEDENCE}, where
+     * higher values bind tighter and {@link #NONE} is not an operator. All
+     * binary operators are left associative.
+     */
+    private static final int NONE = 0;
+    private static final int LOGICAL = 1;
+    private static final int COMPARISON = 2;
+    private static final int ADDITIVE = 3;
+    private static final int MULTIPLICATIVE = 4;
+
     private final TokenStream tokens;
+    private final Engine engine;
+    private List<ParseException> diagnostics = null;
 
     public Parser(List<Token> tokens) {
-        this.tokens = new TokenStream(tokens);
+        this(tokens, Engine.DESCENT);
+    }
+
+    /**
+     * Creates a parser for a list of tokens. A {@link TokenBuffer#asList()}
+     * view is parsed from its buffer directly, but any other list is first
+     * copied into a new buffer, concatenating the literals of its tokens into
+     * a new source. That is one more pass over the tokens and a second copy
+     * of their text, so callers which lex the source themselves should use
+     * {@link Lexer#lexBuffer()} and {@link #Parser(TokenBuffer, Engine)}.
+     */
+    public Parser(List<Token> tokens, Engine engine) {
+        this(tokens instanceof TokenBuffer.View ? ((TokenBuffer.View) tokens).getBuffer() : TokenBuffer.of(tokens), engine);
+    }
+
+    public Parser(TokenBuffer tokens) {
+        this(tokens, Engine.DESCENT);
+    }
+
+    public Parser(TokenBuffer tokens, Engine engine) {
+        this(tokens, engine, 0, tokens.size());
+    }
+
+    /**
+     * Creates a parser for the tokens in {@code [start, end)} of the buffer,
+     * which is used by the {@link ParallelParser}.
+     */
+    Parser(TokenBuffer tokens, Engine engine, int start, int end) {
+        this.tokens = new TokenStream(tokens, start, end);
+        this.engine = engine;
     }
 
     /**
@@ -32,25 +98,59 @@ public final class Parser {
      */
     public Ast.Source parseSource() throws ParseException {
         List<Ast.Field> fields = new ArrayList<>();
-        while (peek("LET")) {
+        while (peekKeyword(SymbolTable.LET)) {
             fields.add(parseField());
         }
         List<Ast.Method> methods = new ArrayList<>();
-        while (peek("DEF")) {
+        while (peekKeyword(SymbolTable.DEF)) {
             methods.add(parseMethod());
         }
         if (tokens.has(0)) {
-            throw new ParseException("Unexpected token: ", tokens.index);
+            throw new ParseException("Unexpected token: ", tokens.getIndex(0));
         }
         return new Ast.Source(fields, methods);
     }
 
+    /**
+     * Parses the {@code source} rule, recovering from errors instead of
+     * throwing them. Each error is added to the diagnostics in the order it
+     * was found, and the returned source contains every field, method and
+     * statement which could still be parsed.
+     */
+    public Ast.Source parseSource(List<ParseException> diagnostics) {
+        this.diagnostics = diagnostics;
+        try {
+            List<Ast.Field> fields = new ArrayList<>();
+            List<Ast.Method> methods = new ArrayList<>();
+            while (tokens.has(0)) {
+                int start = tokens.index;
+                try {
+                    if (peekKeyword(SymbolTable.LET)) {
+                        if (!methods.isEmpty()) {
+                            report(new ParseException("Unexpected token: ", tokens.getIndex(0)));
+                        }
+                        fields.add(parseField());
+                    } else if (peekKeyword(SymbolTable.DEF)) {
+                        methods.add(parseMethod());
+                    } else {
+                        throw new ParseException("Unexpected token: ", tokens.getIndex(0));
+                    }
+                } catch (ParseException e) {
+                    recover(e, start);
+                }
+            }
+            return new Ast.Source(fields, methods);
+        } finally {
+            this.diagnostics = null;
+        }
+    }
+
     /**
      * Parses the {@code field} rule. This method should only be called if the
      * next tokens start a field, aka {@code LET}.
      */
     public Ast.Field parseField() throws ParseException {
-        require("LET");
+        requireKeyword(SymbolTable.LET);
         String name = require(Token.Type.IDENTIFIER);
         require(":");
         String typeName = require(Token.Type.IDENTIFIER);
@@ -64,25 +164,23 @@ public final class Parser {
      * next tokens start a method, aka {@code DEF}.
      */
     public Ast.Method parseMethod() throws ParseException {
-        require("DEF");
+        requireKeyword(SymbolTable.DEF);
         String name = require(Token.Type.IDENTIFIER);
         List<String> parameters = new ArrayList<>();
         List<String> parameterTypeNames = new ArrayList<>();
-        List<Ast.Stmt> statements = new ArrayList<>();
         require("(");
         if (peek(Token.Type.IDENTIFIER)) {
             do {
-                parameters.add(getPreviousTokenLiteral());
+                parameters.add(require(Token.Type.IDENTIFIER));
                 require(":");
                 parameterTypeNames.add(require(Token.Type.IDENTIFIER));
             } while (match(","));
         }
         require(")");
         Optional<String> returnTypeName = match(":") ? Optional.of(require(Token.Type.IDENTIFIER)) : Optional.empty();
-        require("DO");
-        while (!match("END")) {
-            statements.add(parseStatement());
-        }
+        requireKeyword(SymbolTable.DO);
+        List<Ast.Stmt> statements = parseBlock(false);
+        requireEnd();
         return new Ast.Method(name, parameters, parameterTypeNames, returnTypeName, statements);
     }
 
@@ -93,15 +191,15 @@ public final class Parser {
      */
     public Ast.Stmt parseStatement() throws ParseException {
         Ast.Stmt result;
-        if (peek("LET")) {
+        if (peekKeyword(SymbolTable.LET)) {
             result = parseDeclarationStatement();
-        } else if (peek("IF")) {
+        } else if (peekKeyword(SymbolTable.IF)) {
             result = parseIfStatement();
-        } else if (peek("FOR")) {
+        } else if (peekKeyword(SymbolTable.FOR)) {
             result = parseForStatement();
-        } else if (peek("WHILE")) {
+        } else if (peekKeyword(SymbolTable.WHILE)) {
             result = parseWhileStatement();
-        } else if (peek("RETURN")) {
+        } else if (peekKeyword(SymbolTable.RETURN)) {
             result = parseReturnStatement();
         } else {
             Ast.Expr expression = parseExpression();
@@ -115,13 +213,38 @@ public final class Parser {
         return result;
     }
 
+    /**
+     * Parses the statements of a block up to its {@code END}, or {@code ELSE}
+     * if allowed, without consuming it. When recovering, a statement which
+     * fails is skipped, and the block also ends at the next {@code DEF} or the
+     * end of the input so the missing {@code END} is reported by the caller.
+     */
+    private List<Ast.Stmt> parseBlock(boolean allowElse) {
+        List<Ast.Stmt> statements = new ArrayList<>();
+        while (!peekKeyword(SymbolTable.END) && !(allowElse && peekKeyword(SymbolTable.ELSE))) {
+            if (diagnostics == null) {
+                statements.add(parseStatement());
+            } else if (!tokens.has(0) || peekKeyword(SymbolTable.DEF)) {
+                break;
+            } else {
+                int start = tokens.index;
+                try {
+                    statements.add(parseStatement());
+                } catch (ParseException e) {
+                    recover(e, start);
+                }
+            }
+        }
+        return statements;
+    }
+
     /**
      * Parses a declaration statement from the {@code statement} rule. This
      * method should only be called if the next tokens start a declaration
      * statement, aka {@code LET}.
      */
     public Ast.Stmt.Declaration parseDeclarationStatement() throws ParseException {
-        require("LET");
+        requireKeyword(SymbolTable.LET);
         String name = require(Token.Type.IDENTIFIER);
         Optional<String> typeName = match(":") ? Optional.of(require(Token.Type.IDENTIFIER)) : Optional.empty();
         Optional<Ast.Expr> value = match("=") ? Optional.of(parseExpression()) : Optional.empty();
@@ -135,20 +258,12 @@ public final class Parser {
      * {@code IF}.
      */
     public Ast.Stmt.If parseIfStatement() throws ParseException {
-        require("IF");
+        requireKeyword(SymbolTable.IF);
         Ast.Expr value = parseExpression();
-        require("DO");
-        List<Ast.Stmt> thenStatements = new ArrayList<>();
-        List<Ast.Stmt> elseStatements = new ArrayList<>();
-        while (!peek("ELSE") && !peek("END")) {
-            thenStatements.add(parseStatement());
-        }
-        if (match("ELSE")) {
-            while (!peek("END")) {
-                elseStatements.add(parseStatement());
-            }
-        }
-        require("END");
+        requireKeyword(SymbolTable.DO);
+        List<Ast.Stmt> thenStatements = parseBlock(true);
+        List<Ast.Stmt> elseStatements = matchKeyword(SymbolTable.ELSE) ? parseBlock(false) : new ArrayList<>();
+        requireEnd();
         return new Ast.Stmt.If(value, thenStatements, elseStatements);
     }
 
@@ -158,15 +273,13 @@ public final class Parser {
      * {@code FOR}.
      */
     public Ast.Stmt.For parseForStatement() throws ParseException {
-        require("FOR");
+        requireKeyword(SymbolTable.FOR);
         String name = require(Token.Type.IDENTIFIER);
-        require("IN");
+        requireKeyword(SymbolTable.IN);
         Ast.Expr value = parseExpression();
-        require("DO");
-        List<Ast.Stmt> statements = new ArrayList<>();
-        while (!match("END")) {
-            statements.add(parseStatement());
-        }
+        requireKeyword(SymbolTable.DO);
+        List<Ast.Stmt> statements = parseBlock(false);
+        requireEnd();
         return new Ast.Stmt.For(name, value, statements);
     }
 
@@ -176,13 +289,11 @@ public final class Parser {
      * {@code WHILE}.
      */
     public Ast.Stmt.While parseWhileStatement() throws ParseException {
-        require("WHILE");
+        requireKeyword(SymbolTable.WHILE);
         Ast.Expr condition = parseExpression();
-        require("DO");
-        List<Ast.Stmt> statements = new ArrayList<>();
-        while (!match("END")) {
-            statements.add(parseStatement());
-        }
+        requireKeyword(SymbolTable.DO);
+        List<Ast.Stmt> statements = parseBlock(false);
+        requireEnd();
         return new Ast.Stmt.While(condition, statements);
     }
 
@@ -193,7 +304,7 @@ public final class Parser {
      */
     public Ast.Stmt.Return parseReturnStatement() throws ParseException {
         Ast.Stmt.Return result;
-        require("RETURN");
+        requireKeyword(SymbolTable.RETURN);
         result =  new Ast.Stmt.Return(parseExpression());
         require(";");
         return result;
@@ -203,7 +314,75 @@ public final class Parser {
      * Parses the {@code expression} rule.
      */
     public Ast.Expr parseExpression() throws ParseException {
-        return parseLogicalExpression();
+        return engine == Engine.PRECEDENCE ? parseBinaryExpression(LOGICAL) : parseLogicalExpression();
+    }
+
+    /**
+     * Parses a chain of binary operators with a precedence of at least the
+     * given precedence, equivalent to the rule for that level. The right
+     * operand of each operator is parsed one level higher, which makes the
+     * operators left associative.
+     */
+    private Ast.Expr parseBinaryExpression(int precedence) throws ParseException {
+        Ast.Expr result = parseSecondaryExpression();
+        for (Ast.Expr.Binary.Operator operator = peekOperator(); getPrecedence(operator) >= precedence; operator = peekOperator()) {
+            tokens.advance();
+            result = new Ast.Expr.Binary(operator, result, parseBinaryExpression(getPrecedence(operator) + 1));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the binary operator of the next token, or {@code null} if it
+     * is not one. Operators are classified by their characters rather than
+     * comparing the literal against each operator in turn, so the literal is
+     * never materialized.
+     */
+    private Ast.Expr.Binary.Operator peekOperator() {
+        if (!tokens.has(0)) {
+            return null;
+        }
+        int symbol = tokens.getSymbol(0);
+        if (symbol >= 0) {
+            return symbol == SymbolTable.AND ? Ast.Expr.Binary.Operator.AND : symbol == SymbolTable.OR ? Ast.Expr.Binary.Operator.OR : null;
+        }
+        int length = tokens.getLength(0);
+        if (length == 1) {
+            switch (tokens.charAt(0, 0)) {
+                case '<': return Ast.Expr.Binary.Operator.LESS_THAN;
+                case '>': return Ast.Expr.Binary.Operator.GREATER_THAN;
+                case '+': return Ast.Expr.Binary.Operator.ADD;
+                case '-': return Ast.Expr.Binary.Operator.SUBTRACT;
+                case '*': return Ast.Expr.Binary.Operator.MULTIPLY;
+                case '/': return Ast.Expr.Binary.Operator.DIVIDE;
+                default: return null;
+            }
+        } else if (length == 2 && tokens.charAt(0, 1) == '=') {
+            switch (tokens.charAt(0, 0)) {
+                case '<': return Ast.Expr.Binary.Operator.LESS_THAN_OR_EQUAL;
+                case '>': return Ast.Expr.Binary.Operator.GREATER_THAN_OR_EQUAL;
+                case '=': return Ast.Expr.Binary.Operator.EQUAL;
+                case '!': return Ast.Expr.Binary.Operator.NOT_EQUAL;
+                default: return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the precedence of a binary operator, or {@link #NONE} for
+     * {@code null}.
+     */
+    private static int getPrecedence(Ast.Expr.Binary.Operator operator) {
+        if (operator == null) {
+            return NONE;
+        }
+        switch (operator) {
+            case AND: case OR: return LOGICAL;
+            case ADD: case SUBTRACT: return ADDITIVE;
+            case MULTIPLY: case DIVIDE: return MULTIPLICATIVE;
+            default: return COMPARISON;
+        }
     }
 
     /**
@@ -211,9 +390,9 @@ public final class Parser {
      */
     public Ast.Expr parseLogicalExpression() throws ParseException {
         Ast.Expr result = parseComparisonExpression();
-        if (peek("AND") || peek("OR")) {
-            while (match("AND") || match("OR")) {
-                result = new Ast.Expr.Binary(getPreviousTokenLiteral(), result, parseComparisonExpression());
+        if (peekKeyword(SymbolTable.AND) || peekKeyword(SymbolTable.OR)) {
+            while (matchKeyword(SymbolTable.AND) || matchKeyword(SymbolTable.OR)) {
+                result = new Ast.Expr.Binary(Ast.Expr.Binary.Operator.of(getPreviousTokenLiteral()), result, parseComparisonExpression());
             }
         }
         return result;
@@ -222,7 +401,7 @@ public final class Parser {
     public Ast.Expr parseComparisonExpression() throws ParseException {
         Ast.Expr result = parseAdditiveExpression();
         while (match("<") || match("<=") || match(">") || match(">=") || match("==") || match("!=")) {
-            result = new Ast.Expr.Binary(getPreviousTokenLiteral(), result, parseAdditiveExpression());
+            result = new Ast.Expr.Binary(Ast.Expr.Binary.Operator.of(getPreviousTokenLiteral()), result, parseAdditiveExpression());
         }
         return result;
     }
@@ -240,7 +419,7 @@ public final class Parser {
     public Ast.Expr parseAdditiveExpression() throws ParseException {
         Ast.Expr result = parseMultiplicativeExpression();
         while (match("+") || match("-")) {
-            result = new Ast.Expr.Binary(getPreviousTokenLiteral(), result, parseMultiplicativeExpression());
+            result = new Ast.Expr.Binary(Ast.Expr.Binary.Operator.of(getPreviousTokenLiteral()), result, parseMultiplicativeExpression());
         }
         return result;
     }
@@ -251,7 +430,7 @@ public final class Parser {
     public Ast.Expr parseMultiplicativeExpression() throws ParseException {
         Ast.Expr result = parseSecondaryExpression();
         while (match("*") || match("/")) {
-            result = new Ast.Expr.Binary(getPreviousTokenLiteral(), result, parseSecondaryExpression());
+            result = new Ast.Expr.Binary(Ast.Expr.Binary.Operator.of(getPreviousTokenLiteral()), result, parseSecondaryExpression());
         }
         return result;
     }
@@ -275,29 +454,29 @@ public final class Parser {
      */
     public Ast.Expr parsePrimaryExpression() throws ParseException {
         Ast.Expr result;
-        if (match("NIL")) {
+        if (matchKeyword(SymbolTable.NIL)) {
             result = new Ast.Expr.Literal(null);
-        } else if (match("TRUE")) {
+        } else if (matchKeyword(SymbolTable.TRUE)) {
             result = new Ast.Expr.Literal(true);
-        } else if (match("FALSE")) {
+        } else if (matchKeyword(SymbolTable.FALSE)) {
             result = new Ast.Expr.Literal(false);
         } else if (match(Token.Type.INTEGER)) {
             result = new Ast.Expr.Literal(new BigInteger(getPreviousTokenLiteral()));
         } else if (match(Token.Type.DECIMAL)) {
             result = new Ast.Expr.Literal(new BigDecimal(getPreviousTokenLiteral()));
         } else if (match(Token.Type.CHARACTER)) {
-            result = new Ast.Expr.Literal(stripUnescape(getPreviousTokenLiteral()).charAt(0));
+            result = new Ast.Expr.Literal(tokens.getUnescapedLiteral(-1).charAt(0));
         } else if (match(Token.Type.STRING)) {
-            result = new Ast.Expr.Literal(stripUnescape(getPreviousTokenLiteral()));
+            result = new Ast.Expr.Literal(tokens.getUnescapedLiteral(-1));
         } else if (match("(")) {
             result = new Ast.Expr.Group(parseExpression());
             require(")");
         } else if (peek(Token.Type.IDENTIFIER)) {
             result = parseFunction(Optional.empty());
         } else if (tokens.has(0)) {
-            throw new ParseException("Invalid Primary Expression", tokens.get(0).getIndex());
+            throw new ParseException("Invalid Primary Expression", tokens.getIndex(0));
         } else {
-            throw new ParseException("Missing token: ", tokens.get(-1).getIndex() + getPreviousTokenLiteral().length());
+            throw new ParseException("Missing token: ", tokens.getIndex(-1) + tokens.getLength(-1));
         }
         return result;
     }
@@ -318,20 +497,90 @@ public final class Parser {
         }
     }
 
+    /**
+     * Matches the {@code END} of a block. When recovering, a missing
+     * {@code END} is reported without aborting the enclosing rule.
+     */
+    private void requireEnd() {
+        if (!matchKeyword(SymbolTable.END)) {
+            report(expected(tokens.getSymbols().getName(SymbolTable.END)));
+        }
+    }
+
+    /**
+     * Adds the exception to the diagnostics when recovering, and otherwise
+     * throws it.
+     */
+    private void report(ParseException exception) {
+        if (diagnostics == null) {
+            throw exception;
+        }
+        diagnostics.add(exception);
+    }
+
+    /**
+     * Reports an exception thrown by the rule starting at the given token and
+     * synchronizes. The failing token is skipped if nothing was consumed, so
+     * recovery always makes progress.
+     */
+    private void recover(ParseException exception, int start) {
+        report(exception);
+        if (tokens.index == start && tokens.has(0) && !peekKeyword(SymbolTable.DO)) {
+            tokens.advance();
+        }
+        synchronize();
+    }
+
+    /**
+     * Skips tokens until the next statement or method boundary: just past a
+     * {@code ;}, or at an {@code END}, {@code ELSE}, {@code DEF} or
+     * {@code LET}. If a {@code DO} is reached first the error was in the
+     * header of a method or statement, so its body is still parsed for
+     * diagnostics but discarded along with the header.
+     */
+    private void synchronize() {
+        while (tokens.has(0)) {
+            if (peekKeyword(SymbolTable.END) || peekKeyword(SymbolTable.ELSE) || peekKeyword(SymbolTable.DEF) || peekKeyword(SymbolTable.LET)) {
+                return;
+            } else if (matchKeyword(SymbolTable.DO)) {
+                parseBlock(true);
+                if (matchKeyword(SymbolTable.ELSE)) {
+                    parseBlock(false);
+                }
+                requireEnd();
+                return;
+            }
+            tokens.advance();
+            if (tokens.literalEquals(-1, ";")) {
+                return;
+            }
+        }
+    }
+
     private String require(Object pattern) {
         if (match(pattern)) {
             return getPreviousTokenLiteral();
         } else {
-            if (tokens.has(0)) {
-                throw new ParseException(String.format("Expected '%s', received: ", pattern), tokens.get(0).getIndex());
-            } else {
-                throw new ParseException(String.format("Missing '%s'!", pattern), tokens.get(-1).getIndex() + getPreviousTokenLiteral().length());
-            }
+            throw expected(pattern);
+        }
+    }
+
+    private void requireKeyword(int keyword) {
+        if (!matchKeyword(keyword)) {
+            throw expected(tokens.getSymbols().getName(keyword));
+        }
+    }
+
+    private ParseException expected(Object pattern) {
+        if (tokens.has(0)) {
+            return new ParseException(String.format("Expected '%s', received: ", pattern), tokens.getIndex(0));
+        } else {
+            return new ParseException(String.format("Missing '%s'!", pattern), tokens.getIndex(-1) + tokens.getLength(-1));
         }
     }
     
     private String getPreviousTokenLiteral() {
-        return tokens.get(-1).getLiteral();
+        return tokens.getLiteral(-1);
     }
 
     /**
@@ -349,11 +598,11 @@ public final class Parser {
             if (!tokens.has(i)) {
                 return false;
             } else if (patterns[i] instanceof Token.Type) {
-                if (patterns[i] != tokens.get(i).getType()) {
+                if (patterns[i] != tokens.getType(i)) {
                     return false;
                 }
             } else if (patterns[i] instanceof String) {
-                if (!patterns[i].equals(tokens.get(i).getLiteral())) {
+                if (!tokens.literalEquals(i, (String) patterns[i])) {
                     return false;
                 }
             } else {
@@ -363,6 +612,27 @@ public final class Parser {
         return true;
     }
 
+    /**
+     * Returns {@code true} if the next token is the given keyword, which is
+     * one of the symbols defined by {@link SymbolTable}. Keywords are compared
+     * by their symbol id rather than their literal.
+     */
+    private boolean peekKeyword(int keyword) {
+        return tokens.has(0) && tokens.getSymbol(0) == keyword;
+    }
+
+    /**
+     * Returns {@code true} if {@link #peekKeyword(int)} is true and advances
+     * the token stream.
+     */
+    private boolean matchKeyword(int keyword) {
+        boolean peek = peekKeyword(keyword);
+        if (peek) {
+            tokens.advance();
+        }
+        return peek;
+    }
+
     /**
      * As in the lexer, returns {@code true} if {@link #peek(Object...)} is true
      * and advances the token stream.
@@ -381,25 +651,84 @@ public final class Parser {
 
     private static final class TokenStream {
 
-        private final List<Token> tokens;
-        private int index = 0;
+        private final TokenBuffer tokens;
+        private final int end;
+        private int index;
 
-        private TokenStream(List<Token> tokens) {
+        private TokenStream(TokenBuffer tokens, int start, int end) {
             this.tokens = tokens;
+            this.index = start;
+            this.end = end;
         }
 
         /**
          * Returns true if there is a token at index + offset.
          */
         public boolean has(int offset) {
-            return index + offset < tokens.size();
+            return index + offset < end;
+        }
+
+        /**
+         * Gets the type of the token at index + offset.
+         */
+        public Token.Type getType(int offset) {
+            return tokens.getType(index + offset);
+        }
+
+        /**
+         * Gets the source index of the token at index + offset.
+         */
+        public int getIndex(int offset) {
+            return tokens.getIndex(index + offset);
+        }
+
+        /**
+         * Gets the literal length of the token at index + offset.
+         */
+        public int getLength(int offset) {
+            return tokens.getLength(index + offset);
+        }
+
+        /**
+         * Gets the literal of the token at index + offset.
+         */
+        public String getLiteral(int offset) {
+            return tokens.getLiteral(index + offset);
+        }
+
+        /**
+         * Gets the symbol id of the token at index + offset, which is -1 if
+         * the token is not an identifier.
+         */
+        public int getSymbol(int offset) {
+            return tokens.getSymbol(index + offset);
+        }
+
+        public SymbolTable getSymbols() {
+            return tokens.getSymbols();
+        }
+
+        /**
+         * Gets the decoded value of the string or character literal at index +
+         * offset.
+         */
+        public String getUnescapedLiteral(int offset) {
+            return tokens.getUnescapedLiteral(index + offset);
         }
 
         /**
-         * Gets the token at index + offset.
+         * Gets a character of the literal of the token at index + offset.
          */
-        public Token get(int offset) {
-            return tokens.get(index + offset);
+        public char charAt(int offset, int position) {
+            return tokens.charAt(index + offset, position);
+        }
+
+        /**
+         * Returns true if the literal of the token at index + offset is equal
+         * to the given string, without copying the literal.
+         */
+        public boolean literalEquals(int offset, String literal) {
+            return tokens.literalEquals(index + offset, literal);
         }
 
         /**
@@ -411,16 +740,4 @@ public final class Parser {
 
     }
 
-    private static String stripUnescape(String string) {
-        return string.substring(1, string.length() - 1)
-                .replaceAll("\\\\\"", "\"")
-                .replaceAll("\\\\'", "'")
-                .replaceAll("\\\\b", "\b")
-                .replaceAll("\\\\n", "\n")
-                .replaceAll("\\\\r", "\r")
-                .replaceAll("\\\\t", "\t")
-                .replaceAll("\\\\\\\\", "\\")
-                ;
-    }
-
 }
@@ -0,0 +1,99 @@
+package plc.project;
+
+import java.util.List;
+
+/**
+ * Compiled code for the {@link RegisterMachine}, either for a method or for
+ * the top level AST passed to {@link ExecutionEngine#execute(Ast)}.
+ *
+ * Instructions operate on the registers of a frame rather than an operand
+ * stack. Locals are resolved to registers at compile time (the parameters of
+ * a method are registers {@code 0} to {@code n - 1}), and the remaining
+ * registers hold temporary values. A value operand is either a register
+ * {@code r >= 0} or the constant {@code ~r} for {@code r < 0}, so locals and
+ * literals are used in place without being loaded first. Name and method
+ * operands are always indices into the constants.
+ */
+public final class RegisterCode {
+
+    /** {@code MOVE dst, value} */
+    static final int MOVE = 0;
+    /** {@code LOAD_GLOBAL dst, name}, looking up the variable in the scope. */
+    static final int LOAD_GLOBAL = 1;
+    /** {@code STORE_GLOBAL name, value} */
+    static final int STORE_GLOBAL = 2;
+    /** {@code DEFINE_GLOBAL name, value}, defining the variable in the scope. */
+    static final int DEFINE_GLOBAL = 3;
+    /** {@code GET_FIELD dst, object, name} */
+    static final int GET_FIELD = 4;
+    /** {@code SET_FIELD object, name, value} */
+    static final int SET_FIELD = 5;
+    /** {@code CALL dst, name, arity, arguments...} */
+    static final int CALL = 6;
+    /** {@code INVOKE dst, receiver, name, arity, arguments...} */
+    static final int INVOKE = 7;
+    /** {@code JUMP target} */
+    static final int JUMP = 8;
+    /** {@code JUMP_IF_FALSE condition, target}, requiring a boolean. */
+    static final int JUMP_IF_FALSE = 9;
+    /** {@code BOOLEAN dst, value}, requiring a boolean value. */
+    static final int BOOLEAN = 10;
+    /**
+     * {@code AND ... DIVIDE dst, left, right}, one for each operator of
+     * {@link Operators#getOpcode}, in the same order.
+     */
+    static final int AND = 11;
+    static final int LESS_THAN = 12;
+    static final int LESS_THAN_OR_EQUAL = 13;
+    static final int GREATER_THAN = 14;
+    static final int GREATER_THAN_OR_EQUAL = 15;
+    static final int EQUAL = 16;
+    static final int NOT_EQUAL = 17;
+    static final int ADD = 18;
+    static final int SUBTRACT = 19;
+    static final int MULTIPLY = 20;
+    static final int DIVIDE = 21;
+    /** {@code ITERATE dst, iterable}, storing an iterator in the register. */
+    static final int ITERATE = 22;
+    /**
+     * {@code NEXT dst, iterator, target}, storing the next element or
+     * jumping once there are no more elements.
+     */
+    static final int NEXT = 23;
+    /** {@code DEFINE_METHOD method}, defining the method in the scope. */
+    static final int DEFINE_METHOD = 24;
+    /** {@code RETURN value}, returning from the method or top level code. */
+    static final int RETURN = 25;
+    /** {@code FAIL message}, throwing a {@link RuntimeException}. */
+    static final int FAIL = 26;
+
+    private final String name;
+    private final List<String> parameters;
+    final int[] code;
+    final Object[] constants;
+    final int registers;
+
+    RegisterCode(String name, List<String> parameters, int[] code, Object[] constants, int registers) {
+        this.name = name;
+        this.parameters = parameters;
+        this.code = code;
+        this.constants = constants;
+        this.registers = registers;
+    }
+
+    /**
+     * Returns the name of the method, or {@code null} for top level code.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getParameters() {
+        return parameters;
+    }
+
+    public boolean isMethod() {
+        return name != null;
+    }
+
+}
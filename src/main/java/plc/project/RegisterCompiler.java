@@ -0,0 +1,345 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles an AST to {@link RegisterCode} for the {@link RegisterMachine}.
+ *
+ * The {@link Interpreter} creates a scope for each method call, if statement
+ * and loop iteration, and looks up each variable by name through the chain of
+ * scopes. Since declarations in a scope execute in the order they appear, the
+ * variable an access finds is known at compile time: either the innermost
+ * preceding declaration in an enclosing block, or a global. Locals are
+ * therefore assigned registers and blocks need no scopes at runtime, while
+ * globals (including variables declared at the top level, which must remain
+ * visible in the engine's scope) are still looked up by name.
+ *
+ * A declaration which the interpreter would reject as already defined in the
+ * same scope compiles to a {@link RegisterCode#FAIL} after its value.
+ */
+public final class RegisterCompiler {
+
+    /**
+     * The destination of an expression which may be any register or constant.
+     */
+    private static final int ANY = Integer.MIN_VALUE;
+
+    private final boolean method;
+    private int[] code = new int[64];
+    private int size = 0;
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> names = new HashMap<>();
+    private final Map<Object, Integer> literals = new HashMap<>();
+    private Block<Integer> block;
+    private int top = 0;
+    private int registers = 0;
+
+    private RegisterCompiler(boolean method, boolean global) {
+        this.method = method;
+        this.block = new Block<>(null, global);
+    }
+
+    /**
+     * Compiles top level code, which returns the value of an expression or
+     * the result of {@code main/0} for a source, and otherwise nil.
+     */
+    public static RegisterCode compile(Ast ast) {
+        RegisterCompiler compiler = new RegisterCompiler(false, true);
+        int result;
+        if (ast instanceof Ast.Source) {
+            ((Ast.Source) ast).getFields().forEach(compiler::compileNode);
+            ((Ast.Source) ast).getMethods().forEach(compiler::compileNode);
+            result = compiler.allocate();
+            compiler.emit(RegisterCode.CALL, result, compiler.name("main"), 0);
+        } else if (ast instanceof Ast.Expr) {
+            result = compiler.compile((Ast.Expr) ast, ANY);
+        } else {
+            compiler.compileNode(ast);
+            result = compiler.nil();
+        }
+        compiler.emit(RegisterCode.RETURN, result);
+        return compiler.build(null, Arrays.asList());
+    }
+
+    private static RegisterCode compileMethod(Ast.Method ast) {
+        RegisterCompiler compiler = new RegisterCompiler(true, false);
+        if (new HashSet<>(ast.getParameters()).size() != ast.getParameters().size()) {
+            compiler.fail("A parameter of " + ast.getName() + " is already defined.");
+        }
+        for (String parameter : ast.getParameters()) {
+            compiler.block.define(parameter, compiler.allocate());
+        }
+        ast.getStatements().forEach(compiler::compileNode);
+        compiler.emit(RegisterCode.RETURN, compiler.nil());
+        return compiler.build(ast.getName(), ast.getParameters());
+    }
+
+    /**
+     * Compiles a field, method or statement.
+     */
+    private void compileNode(Ast ast) {
+        int mark = top;
+        if (ast instanceof Ast.Field) {
+            Ast.Field field = (Ast.Field) ast;
+            emit(RegisterCode.DEFINE_GLOBAL, name(field.getName()), compileOptional(field.getValue().orElse(null)));
+        } else if (ast instanceof Ast.Method) {
+            emit(RegisterCode.DEFINE_METHOD, constant(compileMethod((Ast.Method) ast)));
+        } else if (ast instanceof Ast.Stmt.Expression) {
+            compile(((Ast.Stmt.Expression) ast).getExpression(), ANY);
+        } else if (ast instanceof Ast.Stmt.Declaration) {
+            compileDeclaration((Ast.Stmt.Declaration) ast);
+            return;
+        } else if (ast instanceof Ast.Stmt.Assignment) {
+            compileAssignment((Ast.Stmt.Assignment) ast);
+        } else if (ast instanceof Ast.Stmt.If) {
+            Ast.Stmt.If statement = (Ast.Stmt.If) ast;
+            int otherwise = emitJump(RegisterCode.JUMP_IF_FALSE, compile(statement.getCondition(), ANY));
+            top = mark;
+            compileBlock(statement.getThenStatements());
+            int end = emitJump(RegisterCode.JUMP);
+            patch(otherwise);
+            compileBlock(statement.getElseStatements());
+            patch(end);
+        } else if (ast instanceof Ast.Stmt.While) {
+            Ast.Stmt.While statement = (Ast.Stmt.While) ast;
+            int loop = size;
+            int end = emitJump(RegisterCode.JUMP_IF_FALSE, compile(statement.getCondition(), ANY));
+            top = mark;
+            compileBlock(statement.getStatements());
+            emit(RegisterCode.JUMP, loop);
+            patch(end);
+        } else if (ast instanceof Ast.Stmt.For) {
+            Ast.Stmt.For statement = (Ast.Stmt.For) ast;
+            int iterable = compile(statement.getValue(), ANY);
+            top = mark;
+            int iterator = allocate();
+            emit(RegisterCode.ITERATE, iterator, iterable);
+            block = new Block<>(block, false);
+            int element = allocate();
+            block.define(statement.getName(), element);
+            int loop = size;
+            int end = emitJump(RegisterCode.NEXT, element, iterator);
+            statement.getStatements().forEach(this::compileNode);
+            block = block.getParent();
+            emit(RegisterCode.JUMP, loop);
+            patch(end);
+        } else if (ast instanceof Ast.Stmt.Return) {
+            int value = compile(((Ast.Stmt.Return) ast).getValue(), ANY);
+            if (method) {
+                emit(RegisterCode.RETURN, value);
+            } else {
+                fail("Return outside of a method.");
+            }
+        } else {
+            throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+        }
+        top = mark;
+    }
+
+    private void compileBlock(List<Ast.Stmt> statements) {
+        int mark = top;
+        block = new Block<>(block, false);
+        statements.forEach(this::compileNode);
+        block = block.getParent();
+        top = mark;
+    }
+
+    /**
+     * Compiles a declaration, which defines a global at the top level and
+     * otherwise allocates a register for the local. The local is only bound
+     * after its value, which may refer to the variable it shadows.
+     */
+    private void compileDeclaration(Ast.Stmt.Declaration ast) {
+        int mark = top;
+        if (block.isGlobal()) {
+            emit(RegisterCode.DEFINE_GLOBAL, name(ast.getName()), compileOptional(ast.getValue().orElse(null)));
+            top = mark;
+        } else if (block.isDefined(ast.getName())) {
+            compileOptional(ast.getValue().orElse(null));
+            fail("The variable " + ast.getName() + " is already defined in this scope.");
+            top = mark;
+        } else {
+            int register = allocate();
+            if (ast.getValue().isPresent()) {
+                compile(ast.getValue().get(), register);
+            } else {
+                emit(RegisterCode.MOVE, register, nil());
+            }
+            block.define(ast.getName(), register);
+            top = register + 1;
+        }
+    }
+
+    private void compileAssignment(Ast.Stmt.Assignment ast) {
+        if (!(ast.getReceiver() instanceof Ast.Expr.Access)) {
+            fail("Invalid assignment receiver " + ast.getReceiver() + ".");
+            return;
+        }
+        Ast.Expr.Access access = (Ast.Expr.Access) ast.getReceiver();
+        if (access.getReceiver().isPresent()) {
+            int value = compile(ast.getValue(), ANY);
+            int object = compile(access.getReceiver().get(), ANY);
+            emit(RegisterCode.SET_FIELD, object, name(access.getName()), value);
+        } else {
+            Integer local = block.resolve(access.getName());
+            if (local != null) {
+                compile(ast.getValue(), local);
+            } else {
+                emit(RegisterCode.STORE_GLOBAL, name(access.getName()), compile(ast.getValue(), ANY));
+            }
+        }
+    }
+
+    private int compileOptional(Ast.Expr expression) {
+        return expression != null ? compile(expression, ANY) : nil();
+    }
+
+    /**
+     * Compiles an expression into the destination register, returning it, or
+     * for {@link #ANY} into any register or constant which is returned. The
+     * destination is only written by the last instruction, after all of the
+     * operands have been read, so an assignment can target the variable
+     * directly even if its value reads it.
+     */
+    private int compile(Ast.Expr ast, int destination) {
+        int mark = top;
+        if (ast instanceof Ast.Expr.Literal) {
+            Object literal = ((Ast.Expr.Literal) ast).getLiteral();
+            return move(literal == null ? nil() : literal(literal), destination);
+        } else if (ast instanceof Ast.Expr.Group) {
+            return compile(((Ast.Expr.Group) ast).getExpression(), destination);
+        } else if (ast instanceof Ast.Expr.Access) {
+            Ast.Expr.Access access = (Ast.Expr.Access) ast;
+            if (access.getReceiver().isPresent()) {
+                int object = compile(access.getReceiver().get(), ANY);
+                int result = target(mark, destination);
+                emit(RegisterCode.GET_FIELD, result, object, name(access.getName()));
+                return result;
+            }
+            Integer local = block.resolve(access.getName());
+            if (local != null) {
+                return move(local, destination);
+            }
+            int result = target(mark, destination);
+            emit(RegisterCode.LOAD_GLOBAL, result, name(access.getName()));
+            return result;
+        } else if (ast instanceof Ast.Expr.Binary) {
+            Ast.Expr.Binary binary = (Ast.Expr.Binary) ast;
+            int left = compile(binary.getLeft(), ANY);
+            if (binary.getOperator() == Ast.Expr.Binary.Operator.OR) {
+                int result = target(mark, destination);
+                int right = emitJump(RegisterCode.JUMP_IF_FALSE, left);
+                emit(RegisterCode.MOVE, result, literal(true));
+                int end = emitJump(RegisterCode.JUMP);
+                patch(right);
+                emit(RegisterCode.BOOLEAN, result, compile(binary.getRight(), ANY));
+                patch(end);
+                top = Math.max(mark, result + 1);
+                return result;
+            }
+            int right = compile(binary.getRight(), ANY);
+            int result = target(mark, destination);
+            emit(Operators.getOpcode(binary.getOperator(), RegisterCode.AND), result, left, right);
+            return result;
+        } else if (ast instanceof Ast.Expr.Function) {
+            Ast.Expr.Function function = (Ast.Expr.Function) ast;
+            int[] arguments = new int[function.getArguments().size()];
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i] = compile(function.getArguments().get(i), ANY);
+            }
+            int receiver = function.getReceiver().isPresent() ? compile(function.getReceiver().get(), ANY) : 0;
+            int result = target(mark, destination);
+            if (function.getReceiver().isPresent()) {
+                emit(RegisterCode.INVOKE, result, receiver, name(function.getName()), arguments.length);
+            } else {
+                emit(RegisterCode.CALL, result, name(function.getName()), arguments.length);
+            }
+            for (int argument : arguments) {
+                emit(argument);
+            }
+            return result;
+        } else {
+            throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+        }
+    }
+
+    /**
+     * Releases the temporaries above the mark, which have been read by the
+     * instruction about to be emitted, and returns the register it should
+     * write to.
+     */
+    private int target(int mark, int destination) {
+        top = mark;
+        return destination == ANY ? allocate() : destination;
+    }
+
+    private int move(int value, int destination) {
+        if (destination == ANY || destination == value) {
+            return value;
+        }
+        emit(RegisterCode.MOVE, destination, value);
+        return destination;
+    }
+
+    private int allocate() {
+        registers = Math.max(registers, top + 1);
+        return top++;
+    }
+
+    private void fail(String message) {
+        emit(RegisterCode.FAIL, constant(message));
+    }
+
+    private void emit(int... instruction) {
+        if (size + instruction.length > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + instruction.length));
+        }
+        System.arraycopy(instruction, 0, code, size, instruction.length);
+        size += instruction.length;
+    }
+
+    /**
+     * Emits a jump with an unknown target as its last operand, returning the
+     * position of the target to {@link #patch(int)}.
+     */
+    private int emitJump(int opcode, int... operands) {
+        int[] instruction = Arrays.copyOf(new int[] {opcode}, operands.length + 2);
+        System.arraycopy(operands, 0, instruction, 1, operands.length);
+        emit(instruction);
+        return size - 1;
+    }
+
+    private void patch(int position) {
+        code[position] = size;
+    }
+
+    private int nil() {
+        return ~literals.computeIfAbsent(Environment.NIL, nil -> constant(Environment.NIL));
+    }
+
+    /**
+     * Returns the constant operand of a literal value.
+     */
+    private int literal(Object literal) {
+        return ~literals.computeIfAbsent(literal, value -> constant(Environment.create(value)));
+    }
+
+    private int name(String name) {
+        return names.computeIfAbsent(name, this::constant);
+    }
+
+    private int constant(Object constant) {
+        constants.add(constant);
+        return constants.size() - 1;
+    }
+
+    private RegisterCode build(String name, List<String> parameters) {
+        return new RegisterCode(name, parameters, Arrays.copyOf(code, size), constants.toArray(), registers);
+    }
+
+}
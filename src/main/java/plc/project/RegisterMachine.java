@@ -0,0 +1,192 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Executes ASTs by compiling them with the {@link RegisterCompiler} and
+ * running the resulting {@link RegisterCode} over a flat frame of registers.
+ *
+ * Like the {@link StackMachine}, blocks and method calls create no scopes:
+ * locals live in the frame, which is allocated once per call, and only
+ * globals are looked up by name. Unlike it, instructions read their operands
+ * from registers in place, so locals are never pushed or popped. Methods are still defined in the engine's
+ * scope, so they can be called reflectively through {@link #getScope()} and
+ * the results and side effects are the same as for the {@link Interpreter}.
+ */
+public final class RegisterMachine implements ExecutionEngine {
+
+    private final Scope scope;
+
+    public RegisterMachine(Scope parent) {
+        scope = new Scope(parent);
+        ExecutionEngine.defineBuiltins(scope);
+    }
+
+    @Override
+    public Scope getScope() {
+        return scope;
+    }
+
+    @Override
+    public Environment.PlcObject execute(Ast ast) {
+        RegisterCode code = RegisterCompiler.compile(ast);
+        return run(code, new Object[code.registers], scope);
+    }
+
+    private Environment.PlcObject invoke(RegisterCode method, Scope definition, List<Environment.PlcObject> arguments) {
+        Object[] frame = new Object[method.registers];
+        for (int i = 0; i < arguments.size(); i++) {
+            frame[i] = arguments.get(i);
+        }
+        return run(method, frame, definition);
+    }
+
+    private Environment.PlcObject run(RegisterCode method, Object[] frame, Scope scope) {
+        int[] code = method.code;
+        Object[] constants = method.constants;
+        int pc = 0;
+        while (true) {
+            switch (code[pc]) {
+                case RegisterCode.MOVE:
+                    frame[code[pc + 1]] = value(frame, constants, code[pc + 2]);
+                    pc += 3;
+                    break;
+                case RegisterCode.LOAD_GLOBAL:
+                    frame[code[pc + 1]] = scope.lookupVariable((String) constants[code[pc + 2]]).getValue();
+                    pc += 3;
+                    break;
+                case RegisterCode.STORE_GLOBAL:
+                    scope.lookupVariable((String) constants[code[pc + 1]]).setValue(value(frame, constants, code[pc + 2]));
+                    pc += 3;
+                    break;
+                case RegisterCode.DEFINE_GLOBAL:
+                    scope.defineVariable((String) constants[code[pc + 1]], value(frame, constants, code[pc + 2]));
+                    pc += 3;
+                    break;
+                case RegisterCode.GET_FIELD:
+                    frame[code[pc + 1]] = value(frame, constants, code[pc + 2]).getField((String) constants[code[pc + 3]]).getValue();
+                    pc += 4;
+                    break;
+                case RegisterCode.SET_FIELD:
+                    value(frame, constants, code[pc + 1]).setField((String) constants[code[pc + 2]], value(frame, constants, code[pc + 3]));
+                    pc += 4;
+                    break;
+                case RegisterCode.CALL: {
+                    int arity = code[pc + 3];
+                    List<Environment.PlcObject> arguments = arguments(frame, constants, code, pc + 4, arity);
+                    frame[code[pc + 1]] = scope.lookupFunction((String) constants[code[pc + 2]], arity).invoke(arguments);
+                    pc += 4 + arity;
+                    break;
+                }
+                case RegisterCode.INVOKE: {
+                    int arity = code[pc + 4];
+                    List<Environment.PlcObject> arguments = arguments(frame, constants, code, pc + 5, arity);
+                    frame[code[pc + 1]] = value(frame, constants, code[pc + 2]).callMethod((String) constants[code[pc + 3]], arguments);
+                    pc += 5 + arity;
+                    break;
+                }
+                case RegisterCode.JUMP:
+                    pc = code[pc + 1];
+                    break;
+                case RegisterCode.JUMP_IF_FALSE:
+                    pc = Operators.requireBoolean(value(frame, constants, code[pc + 1])) ? pc + 3 : code[pc + 2];
+                    break;
+                case RegisterCode.BOOLEAN:
+                    frame[code[pc + 1]] = Environment.create(Operators.requireBoolean(value(frame, constants, code[pc + 2])));
+                    pc += 3;
+                    break;
+                case RegisterCode.AND:
+                    frame[code[pc + 1]] = Operators.and(value(frame, constants, code[pc + 2]), value(frame, constants, code[pc + 3]));
+                    pc += 4;
+                    break;
+                case RegisterCode.LESS_THAN:
+                    frame[code[pc + 1]] = Operators.lessThan(value(frame, constants, code[pc + 2]), value(frame, constants, code[pc + 3]));
+                    pc += 4;
+                    break;
+                case RegisterCode.LESS_THAN_OR_EQUAL:
+                    frame[code[pc + 1]] = Operators.lessThanOrEqual(value(frame, constants, code[pc + 2]), value(frame, constants, code[pc + 3]));
+                    pc += 4;
+                    break;
+                case RegisterCode.GREATER_THAN:
+                    frame[code[pc + 1]] = Operators.greaterThan(value(frame, constants, code[pc + 2]), value(frame, constants, code[pc + 3]));
+                    pc += 4;
+                    break;
+                case RegisterCode.GREATER_THAN_OR_EQUAL:
+                    frame[code[pc + 1]] = Operators.greaterThanOrEqual(value(frame, constants, code[pc + 2]), value(frame, constants, code[pc + 3]));
+                    pc += 4;
+                    break;
+                case RegisterCode.EQUAL:
+                    frame[code[pc + 1]] = Operators.equal(value(frame, constants, code[pc + 2]), value(frame, constants, code[pc + 3]));
+                    pc += 4;
+                    break;
+                case RegisterCode.NOT_EQUAL:
+                    frame[code[pc + 1]] = Operators.notEqual(value(frame, constants, code[pc + 2]), value(frame, constants, code[pc + 3]));
+                    pc += 4;
+                    break;
+                case RegisterCode.ADD:
+                    frame[code[pc + 1]] = Operators.add(value(frame, constants, code[pc + 2]), value(frame, constants, code[pc + 3]));
+                    pc += 4;
+                    break;
+                case RegisterCode.SUBTRACT:
+                    frame[code[pc + 1]] = Operators.subtract(value(frame, constants, code[pc + 2]), value(frame, constants, code[pc + 3]));
+                    pc += 4;
+                    break;
+                case RegisterCode.MULTIPLY:
+                    frame[code[pc + 1]] = Operators.multiply(value(frame, constants, code[pc + 2]), value(frame, constants, code[pc + 3]));
+                    pc += 4;
+                    break;
+                case RegisterCode.DIVIDE:
+                    frame[code[pc + 1]] = Operators.divide(value(frame, constants, code[pc + 2]), value(frame, constants, code[pc + 3]));
+                    pc += 4;
+                    break;
+                case RegisterCode.ITERATE:
+                    frame[code[pc + 1]] = Operators.requireType(Iterable.class, value(frame, constants, code[pc + 2])).iterator();
+                    pc += 3;
+                    break;
+                case RegisterCode.NEXT: {
+                    Iterator<?> iterator = (Iterator<?>) frame[code[pc + 2]];
+                    if (iterator.hasNext()) {
+                        frame[code[pc + 1]] = iterator.next();
+                        pc += 4;
+                    } else {
+                        frame[code[pc + 2]] = null;
+                        pc = code[pc + 3];
+                    }
+                    break;
+                }
+                case RegisterCode.DEFINE_METHOD: {
+                    RegisterCode definition = (RegisterCode) constants[code[pc + 1]];
+                    Scope parent = scope;
+                    scope.defineFunction(definition.getName(), definition.getParameters().size(), arguments -> invoke(definition, parent, arguments));
+                    pc += 2;
+                    break;
+                }
+                case RegisterCode.RETURN:
+                    return value(frame, constants, code[pc + 1]);
+                case RegisterCode.FAIL:
+                    throw new RuntimeException((String) constants[code[pc + 1]]);
+                default:
+                    throw new AssertionError("Invalid opcode " + code[pc] + " at " + pc + ".");
+            }
+        }
+    }
+
+    /**
+     * Returns the value of an operand, which is a register if non-negative
+     * and otherwise the complement of a constant.
+     */
+    private static Environment.PlcObject value(Object[] frame, Object[] constants, int operand) {
+        return (Environment.PlcObject) (operand >= 0 ? frame[operand] : constants[~operand]);
+    }
+
+    private static List<Environment.PlcObject> arguments(Object[] frame, Object[] constants, int[] code, int start, int arity) {
+        List<Environment.PlcObject> arguments = new ArrayList<>(arity);
+        for (int i = start; i < start + arity; i++) {
+            arguments.add(value(frame, constants, code[i]));
+        }
+        return arguments;
+    }
+
+}
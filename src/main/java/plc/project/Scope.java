@@ -1,19 +1,66 @@
 package plc.project;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * A scope of variables and functions. Most scopes (blocks and method calls)
+ * hold only a few variables and no functions, so variables are kept in small
+ * inline arrays until there are more than {@link #INLINE} of them and the
+ * maps are only allocated once needed.
+ *
+ * Lookups can be cached by depth: {@link #resolveVariable(String)} returns
+ * how many scopes up a variable is defined, and {@link #lookupVariable(String,
+ * int)} checks that scope directly. A depth remains valid for a site as long
+ * as no variable is defined in a scope which already has children, which is
+ * tracked by {@link #getVersion()} for each tree of scopes. Function lookups
+ * can be cached as long as {@link #getFunctionVersion()} is unchanged.
+ *
+ * Functions are kept by name, each with an array of its overloads indexed by
+ * arity, so a lookup probes each scope's table once without building a key.
+ */
 public final class Scope {
 
+    private static final int INLINE = 4;
+
     private final Scope parent;
-    private final Map<String, Environment.Variable> variables = new HashMap<>();
-    private final Map<String, Environment.Function> functions = new HashMap<>();
+    /**
+     * Shared by all scopes with the same root, and incremented whenever a
+     * variable is defined in one of them which has children, since it may
+     * shadow a variable those children previously resolved further up (see
+     * {@link #getVersion()}).
+     */
+    private final AtomicInteger version;
+    /**
+     * Shared by all scopes with the same root, and incremented whenever a
+     * function is defined in one of them (see {@link #getFunctionVersion()}).
+     */
+    private final AtomicInteger functionVersion;
+    private boolean children = false;
+    private String[] names = null;
+    private Environment.Variable[] values = null;
+    private int size = 0;
+    private Map<String, Environment.Variable> variables = null;
+    private Map<String, Environment.Function[]> functions = null;
 
     public Scope(Scope parent) {
         this.parent = parent;
+        if (parent != null) {
+            parent.children = true;
+            version = parent.version;
+            functionVersion = parent.functionVersion;
+        } else {
+            version = new AtomicInteger();
+            functionVersion = new AtomicInteger();
+        }
     }
 
     public Scope getParent() {
@@ -25,23 +72,92 @@ public final class Scope {
     }
 
     public Environment.Variable defineVariable(String name, String jvmName, Environment.Type type, Environment.PlcObject value) {
-        if (variables.containsKey(name)) {
+        if (findVariable(name) != null) {
             throw new RuntimeException("The variable " + name + " is already defined in this scope.");
+        }
+        Environment.Variable variable = new Environment.Variable(name, jvmName, type, value);
+        if (variables != null) {
+            variables.put(name, variable);
+        } else if (size < INLINE) {
+            if (names == null) {
+                names = new String[INLINE];
+                values = new Environment.Variable[INLINE];
+            }
+            names[size] = name;
+            values[size++] = variable;
         } else {
-            Environment.Variable variable = new Environment.Variable(name, jvmName, type, value);
-            variables.put(variable.getName(), variable);
-            return variables.get(name);
+            variables = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                variables.put(names[i], values[i]);
+            }
+            variables.put(name, variable);
+            names = null;
+            values = null;
+        }
+        if (children) {
+            version.incrementAndGet();
         }
+        return variable;
     }
 
     public Environment.Variable lookupVariable(String name) {
-        if (variables.containsKey(name)) {
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            Environment.Variable variable = scope.findVariable(name);
+            if (variable != null) {
+                return variable;
+            }
+        }
+        throw new RuntimeException("The variable " + name + " is not defined in this scope.");
+    }
+
+    /**
+     * Returns how many scopes up from this one a variable is defined, throwing
+     * like {@link #lookupVariable(String)} if it is not defined.
+     */
+    int resolveVariable(String name) {
+        int depth = 0;
+        for (Scope scope = this; scope != null; scope = scope.parent, depth++) {
+            if (scope.findVariable(name) != null) {
+                return depth;
+            }
+        }
+        throw new RuntimeException("The variable " + name + " is not defined in this scope.");
+    }
+
+    /**
+     * Returns the variable defined exactly {@code depth} scopes up from this
+     * one, or {@code null} if that scope does not define it.
+     */
+    Environment.Variable lookupVariable(String name, int depth) {
+        Scope scope = this;
+        for (int i = 0; i < depth && scope != null; i++) {
+            scope = scope.parent;
+        }
+        return scope != null ? scope.findVariable(name) : null;
+    }
+
+    /**
+     * Returns the version of the scopes with the same root as this one, which
+     * changes whenever a variable is defined in one of them with children.
+     * Between changes, a variable resolved from an access site stays at the
+     * same depth: the scopes enclosing a site are determined by its position
+     * in the source, and each holds the same variables whenever the site is
+     * reached. Definitions in other trees of scopes leave it unchanged.
+     */
+    int getVersion() {
+        return version.get();
+    }
+
+    private Environment.Variable findVariable(String name) {
+        if (variables != null) {
             return variables.get(name);
-        } else if (parent != null) {
-            return parent.lookupVariable(name);
-        } else {
-            throw new RuntimeException("The variable " + name + " is not defined in this scope.");
         }
+        for (int i = 0; i < size; i++) {
+            if (names[i].equals(name)) {
+                return values[i];
+            }
+        }
+        return null;
     }
 
     public void defineFunction(String name, int arity, Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
@@ -53,31 +169,73 @@ public final class Scope {
     }
 
     public Environment.Function defineFunction(String name, String jvmName, List<Environment.Type> parameterTypes, Environment.Type returnType, java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
-        if (functions.containsKey(name + "/" + parameterTypes.size())) {
-            throw new RuntimeException("The function " + name + "/" + parameterTypes.size() + " is already defined in this scope.");
-        } else {
-            Environment.Function func = new Environment.Function(name, jvmName, parameterTypes, returnType, function);
-            functions.put(func.getName() + "/" + func.getParameterTypes().size(), func);
-            return func;
+        int arity = parameterTypes.size();
+        if (functions == null) {
+            functions = new HashMap<>();
+        }
+        Environment.Function[] overloads = functions.get(name);
+        if (overloads != null && arity < overloads.length && overloads[arity] != null) {
+            throw new RuntimeException("The function " + name + "/" + arity + " is already defined in this scope.");
+        } else if (overloads == null || arity >= overloads.length) {
+            overloads = Arrays.copyOf(overloads != null ? overloads : new Environment.Function[0], arity + 1);
+            functions.put(name, overloads);
         }
+        Environment.Function func = new Environment.Function(name, jvmName, parameterTypes, returnType, function);
+        overloads[arity] = func;
+        functionVersion.incrementAndGet();
+        return func;
     }
 
+    /**
+     * Looks up a function by name and arity, probing each scope's table once
+     * on the way up the parent chain.
+     */
     public Environment.Function lookupFunction(String name, int arity) {
-        if (functions.containsKey(name + "/" + arity)) {
-            return functions.get(name + "/" + arity);
-        } else if (parent != null) {
-            return parent.lookupFunction(name, arity);
-        } else {
-            throw new RuntimeException("The function " + name + "/" + arity + " is not defined in this scope.");
+        for (Scope scope = this; scope != null; scope = scope.parent) {
+            Environment.Function[] overloads = scope.functions != null ? scope.functions.get(name) : null;
+            if (overloads != null && arity < overloads.length && overloads[arity] != null) {
+                return overloads[arity];
+            }
+        }
+        throw new RuntimeException("The function " + name + "/" + arity + " is not defined in this scope.");
+    }
+
+    /**
+     * Returns the functions defined in this scope, not including its parents.
+     */
+    Collection<Environment.Function> getFunctions() {
+        if (functions == null) {
+            return Collections.emptyList();
         }
+        List<Environment.Function> result = new ArrayList<>();
+        for (Environment.Function[] overloads : functions.values()) {
+            for (Environment.Function function : overloads) {
+                if (function != null) {
+                    result.add(function);
+                }
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns the function version of the scopes with the same root as this
+     * one, which changes whenever a function is defined in one of them.
+     * Functions are never removed, so a lookup from this scope cached while
+     * the version had some value is still valid while it has the same value,
+     * since no definition could have shadowed its result. Checking it is a
+     * single read, however long the parent chain is.
+     */
+    int getFunctionVersion() {
+        return functionVersion.get();
     }
 
     @Override
     public String toString() {
         return "Scope{" +
                 "parent=" + parent +
-                ", variables=" + variables.keySet() +
-                ", functions=" + functions.keySet() +
+                ", variables=" + (variables != null ? variables.keySet() : Arrays.asList(names != null ? Arrays.copyOf(names, size) : new String[0])) +
+                ", functions=" + getFunctions().stream().map(function -> function.getName() + "/" + function.getParameterTypes().size()).collect(Collectors.toList()) +
                 '}';
     }
 
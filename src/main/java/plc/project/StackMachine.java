@@ -0,0 +1,402 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.BinaryOperator;
+
+/**
+ * Executes ASTs by compiling them with the {@link BytecodeCompiler} and
+ * running the resulting {@link Bytecode} on an operand stack, instead of
+ * dispatching on each node of the AST every time it is evaluated.
+ *
+ * Each run of some code gets a frame holding its locals in the slots the
+ * compiler resolved them to, followed by the operand stack, so blocks and
+ * method calls create no scopes. Globals and functions are still defined in
+ * {@link Scope}s, so the results and side effects are the same as for the
+ * {@link Interpreter}. Returning from a method is a plain return from {@link
+ * #run(Bytecode, Object[], long[], Scope)} rather than an exception.
+ *
+ * Integers which fit in a long are unboxed into a parallel array of longs
+ * while they stay in the frame, so arithmetic and comparisons on them do not
+ * allocate; they are only boxed again once they leave the frame, such as
+ * when they are stored in a global or passed to a method.
+ */
+public final class StackMachine implements ExecutionEngine {
+
+    /**
+     * Marks a value of the frame as an unboxed integer, which is held in the
+     * same index of the array of longs instead.
+     */
+    private static final Object LONG = new Object();
+
+    private final Scope scope;
+
+    public StackMachine(Scope parent) {
+        scope = new Scope(parent);
+        ExecutionEngine.defineBuiltins(scope);
+    }
+
+    @Override
+    public Scope getScope() {
+        return scope;
+    }
+
+    @Override
+    public Environment.PlcObject execute(Ast ast) {
+        Bytecode bytecode = BytecodeCompiler.compile(ast);
+        int size = bytecode.locals + bytecode.maxStack;
+        return run(bytecode, new Object[size], new long[size], scope);
+    }
+
+    private Environment.PlcObject invoke(Bytecode method, Scope definition, List<Environment.PlcObject> arguments) {
+        int size = method.locals + method.maxStack;
+        Object[] stack = new Object[size];
+        for (int i = 0; i < arguments.size(); i++) {
+            stack[i] = arguments.get(i);
+        }
+        return run(method, stack, new long[size], definition);
+    }
+
+    private Environment.PlcObject run(Bytecode bytecode, Object[] stack, long[] longs, Scope scope) {
+        int[] code = bytecode.code;
+        Object[] constants = bytecode.constants;
+        int top = bytecode.locals;
+        int pc = 0;
+        while (true) {
+            switch (code[pc++]) {
+                case Bytecode.NIL:
+                    stack[top++] = Environment.NIL;
+                    break;
+                case Bytecode.CONST:
+                    stack[top++] = constants[code[pc++]];
+                    break;
+                case Bytecode.LOAD_LOCAL: {
+                    int slot = code[pc++];
+                    stack[top] = stack[slot];
+                    longs[top++] = longs[slot];
+                    break;
+                }
+                case Bytecode.STORE_LOCAL: {
+                    int slot = code[pc++];
+                    stack[slot] = stack[--top];
+                    longs[slot] = longs[top];
+                    stack[top] = null;
+                    break;
+                }
+                case Bytecode.LOAD:
+                    stack[top++] = scope.lookupVariable((String) constants[code[pc++]]).getValue();
+                    break;
+                case Bytecode.STORE:
+                    scope.lookupVariable((String) constants[code[pc++]]).setValue(pop(stack, longs, --top));
+                    break;
+                case Bytecode.DEFINE:
+                    scope.defineVariable((String) constants[code[pc++]], pop(stack, longs, --top));
+                    break;
+                case Bytecode.GET_FIELD:
+                    stack[top - 1] = box(stack, longs, top - 1).getField((String) constants[code[pc++]]).getValue();
+                    break;
+                case Bytecode.SET_FIELD: {
+                    Environment.PlcObject object = pop(stack, longs, --top);
+                    object.setField((String) constants[code[pc++]], pop(stack, longs, --top));
+                    break;
+                }
+                case Bytecode.CALL: {
+                    String name = (String) constants[code[pc++]];
+                    int arity = code[pc++];
+                    List<Environment.PlcObject> arguments = pop(stack, longs, top, arity);
+                    top -= arity;
+                    stack[top++] = scope.lookupFunction(name, arity).invoke(arguments);
+                    break;
+                }
+                case Bytecode.INVOKE: {
+                    String name = (String) constants[code[pc++]];
+                    int arity = code[pc++];
+                    Environment.PlcObject receiver = pop(stack, longs, --top);
+                    List<Environment.PlcObject> arguments = pop(stack, longs, top, arity);
+                    top -= arity;
+                    stack[top++] = receiver.callMethod(name, arguments);
+                    break;
+                }
+                case Bytecode.POP:
+                    stack[--top] = null;
+                    break;
+                case Bytecode.JUMP:
+                    pc = code[pc];
+                    break;
+                case Bytecode.JUMP_IF_FALSE:
+                    pc = Operators.requireBoolean(pop(stack, longs, --top)) ? pc + 1 : code[pc];
+                    break;
+                case Bytecode.OR:
+                    if (Operators.requireBoolean(pop(stack, longs, --top))) {
+                        stack[top++] = Environment.create(true);
+                        pc = code[pc];
+                    } else {
+                        pc++;
+                    }
+                    break;
+                case Bytecode.BOOLEAN:
+                    stack[top - 1] = Environment.create(Operators.requireBoolean(box(stack, longs, top - 1)));
+                    break;
+                case Bytecode.AND:
+                    top = binary(stack, longs, top, Operators::and);
+                    break;
+                case Bytecode.LESS_THAN:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        top = compare(stack, top, longs[top - 2] < longs[top - 1]);
+                    } else {
+                        top = binary(stack, longs, top, Operators::lessThan);
+                    }
+                    break;
+                case Bytecode.LESS_THAN_OR_EQUAL:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        top = compare(stack, top, longs[top - 2] <= longs[top - 1]);
+                    } else {
+                        top = binary(stack, longs, top, Operators::lessThanOrEqual);
+                    }
+                    break;
+                case Bytecode.GREATER_THAN:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        top = compare(stack, top, longs[top - 2] > longs[top - 1]);
+                    } else {
+                        top = binary(stack, longs, top, Operators::greaterThan);
+                    }
+                    break;
+                case Bytecode.GREATER_THAN_OR_EQUAL:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        top = compare(stack, top, longs[top - 2] >= longs[top - 1]);
+                    } else {
+                        top = binary(stack, longs, top, Operators::greaterThanOrEqual);
+                    }
+                    break;
+                case Bytecode.EQUAL:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        top = compare(stack, top, longs[top - 2] == longs[top - 1]);
+                    } else {
+                        top = binary(stack, longs, top, Operators::equal);
+                    }
+                    break;
+                case Bytecode.NOT_EQUAL:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        top = compare(stack, top, longs[top - 2] != longs[top - 1]);
+                    } else {
+                        top = binary(stack, longs, top, Operators::notEqual);
+                    }
+                    break;
+                case Bytecode.ADD:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        long left = longs[top - 2];
+                        long right = longs[top - 1];
+                        long result = left + right;
+                        if (((left ^ result) & (right ^ result)) >= 0) {
+                            top = arithmetic(stack, longs, top, result);
+                            break;
+                        }
+                    }
+                    top = binary(stack, longs, top, Operators::add);
+                    break;
+                case Bytecode.SUBTRACT:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        long left = longs[top - 2];
+                        long right = longs[top - 1];
+                        long result = left - right;
+                        if (((left ^ right) & (left ^ result)) >= 0) {
+                            top = arithmetic(stack, longs, top, result);
+                            break;
+                        }
+                    }
+                    top = binary(stack, longs, top, Operators::subtract);
+                    break;
+                case Bytecode.MULTIPLY:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        long left = longs[top - 2];
+                        long right = longs[top - 1];
+                        long high = Math.multiplyHigh(left, right);
+                        long result = left * right;
+                        if (high == result >> 63) {
+                            top = arithmetic(stack, longs, top, result);
+                            break;
+                        }
+                    }
+                    top = binary(stack, longs, top, Operators::multiply);
+                    break;
+                case Bytecode.DIVIDE:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        long left = longs[top - 2];
+                        long right = longs[top - 1];
+                        if (right != 0 && (left != Long.MIN_VALUE || right != -1)) {
+                            top = arithmetic(stack, longs, top, left / right);
+                            break;
+                        }
+                    }
+                    top = binary(stack, longs, top, Operators::divide);
+                    break;
+                case Bytecode.INTEGER:
+                    stack[top] = LONG;
+                    longs[top++] = code[pc++];
+                    break;
+                case Bytecode.JUMP_UNLESS_LESS_THAN:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        pc = longs[top - 2] < longs[top - 1] ? pc + 1 : code[pc];
+                        top = drop(stack, top);
+                    } else {
+                        top = binary(stack, longs, top, Operators::lessThan);
+                        pc = Operators.requireBoolean(pop(stack, longs, --top)) ? pc + 1 : code[pc];
+                    }
+                    break;
+                case Bytecode.JUMP_UNLESS_LESS_THAN_OR_EQUAL:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        pc = longs[top - 2] <= longs[top - 1] ? pc + 1 : code[pc];
+                        top = drop(stack, top);
+                    } else {
+                        top = binary(stack, longs, top, Operators::lessThanOrEqual);
+                        pc = Operators.requireBoolean(pop(stack, longs, --top)) ? pc + 1 : code[pc];
+                    }
+                    break;
+                case Bytecode.JUMP_UNLESS_GREATER_THAN:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        pc = longs[top - 2] > longs[top - 1] ? pc + 1 : code[pc];
+                        top = drop(stack, top);
+                    } else {
+                        top = binary(stack, longs, top, Operators::greaterThan);
+                        pc = Operators.requireBoolean(pop(stack, longs, --top)) ? pc + 1 : code[pc];
+                    }
+                    break;
+                case Bytecode.JUMP_UNLESS_GREATER_THAN_OR_EQUAL:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        pc = longs[top - 2] >= longs[top - 1] ? pc + 1 : code[pc];
+                        top = drop(stack, top);
+                    } else {
+                        top = binary(stack, longs, top, Operators::greaterThanOrEqual);
+                        pc = Operators.requireBoolean(pop(stack, longs, --top)) ? pc + 1 : code[pc];
+                    }
+                    break;
+                case Bytecode.JUMP_UNLESS_EQUAL:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        pc = longs[top - 2] == longs[top - 1] ? pc + 1 : code[pc];
+                        top = drop(stack, top);
+                    } else {
+                        top = binary(stack, longs, top, Operators::equal);
+                        pc = Operators.requireBoolean(pop(stack, longs, --top)) ? pc + 1 : code[pc];
+                    }
+                    break;
+                case Bytecode.JUMP_UNLESS_NOT_EQUAL:
+                    if (unbox(stack, longs, top - 2) && unbox(stack, longs, top - 1)) {
+                        pc = longs[top - 2] != longs[top - 1] ? pc + 1 : code[pc];
+                        top = drop(stack, top);
+                    } else {
+                        top = binary(stack, longs, top, Operators::notEqual);
+                        pc = Operators.requireBoolean(pop(stack, longs, --top)) ? pc + 1 : code[pc];
+                    }
+                    break;
+                case Bytecode.ITERATE:
+                    stack[top - 1] = Operators.requireType(Iterable.class, box(stack, longs, top - 1)).iterator();
+                    break;
+                case Bytecode.NEXT: {
+                    Iterator<?> iterator = (Iterator<?>) stack[top - 1];
+                    if (iterator.hasNext()) {
+                        stack[code[pc]] = iterator.next();
+                        pc += 2;
+                    } else {
+                        stack[--top] = null;
+                        pc = code[pc + 1];
+                    }
+                    break;
+                }
+                case Bytecode.DEFINE_METHOD: {
+                    Bytecode method = (Bytecode) constants[code[pc++]];
+                    Scope definition = scope;
+                    scope.defineFunction(method.getName(), method.getParameters().size(), arguments -> invoke(method, definition, arguments));
+                    break;
+                }
+                case Bytecode.RETURN:
+                case Bytecode.HALT:
+                    return box(stack, longs, top - 1);
+                case Bytecode.FAIL:
+                    throw new RuntimeException((String) constants[code[pc]]);
+                default:
+                    throw new AssertionError("Invalid opcode " + code[pc - 1] + " at " + (pc - 1) + ".");
+            }
+        }
+    }
+
+    /**
+     * Returns whether the value at the index is an integer which fits in a
+     * long, in which case it is unboxed into {@code longs} if it was not
+     * already.
+     */
+    private static boolean unbox(Object[] stack, long[] longs, int index) {
+        Object value = stack[index];
+        if (value == LONG) {
+            return true;
+        } else if (((Environment.PlcObject) value).isLong()) {
+            longs[index] = ((Environment.PlcObject) value).longValue();
+            stack[index] = LONG;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value at the index, boxing it again if it was unboxed.
+     */
+    private static Environment.PlcObject box(Object[] stack, long[] longs, int index) {
+        Object value = stack[index];
+        return value == LONG ? Environment.createInteger(longs[index]) : (Environment.PlcObject) value;
+    }
+
+    private static Environment.PlcObject pop(Object[] stack, long[] longs, int index) {
+        Environment.PlcObject value = box(stack, longs, index);
+        stack[index] = null;
+        return value;
+    }
+
+    /**
+     * Returns the top {@code count} values of the stack as a list, in the
+     * order they were pushed.
+     */
+    private static List<Environment.PlcObject> pop(Object[] stack, long[] longs, int top, int count) {
+        List<Environment.PlcObject> values = new ArrayList<>(count);
+        for (int i = top - count; i < top; i++) {
+            values.add(pop(stack, longs, i));
+        }
+        return values;
+    }
+
+    private static int binary(Object[] stack, long[] longs, int top, BinaryOperator<Environment.PlcObject> operator) {
+        Environment.PlcObject right = pop(stack, longs, --top);
+        stack[top - 1] = operator.apply(box(stack, longs, top - 1), right);
+        return top;
+    }
+
+    /**
+     * Replaces the two unboxed integers on top of the stack with the result
+     * of comparing them.
+     */
+    private static int compare(Object[] stack, int top, boolean result) {
+        stack[--top] = null;
+        stack[top - 1] = Environment.create(result);
+        return top;
+    }
+
+    /**
+     * Pops the two unboxed integers on top of the stack after a comparison
+     * which jumped on them.
+     */
+    private static int drop(Object[] stack, int top) {
+        stack[--top] = null;
+        stack[--top] = null;
+        return top;
+    }
+
+    /**
+     * Replaces the two unboxed integers on top of the stack with the unboxed
+     * result of an operation on them.
+     */
+    private static int arithmetic(Object[] stack, long[] longs, int top, long result) {
+        stack[--top] = null;
+        longs[top - 1] = result;
+        return top;
+    }
+
+}
@@ -0,0 +1,163 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lexes a {@link Reader} (or byte channel) lazily, yielding the same tokens as
+ * {@link Lexer#lex()} one at a time.
+ *
+ * Characters are read through a fixed-size ring buffer, and characters before
+ * the current token are discarded as soon as the token is emitted. Memory use
+ * is therefore bounded by the buffer capacity regardless of the input size;
+ * the buffer only grows if a single token is longer than its capacity.
+ *
+ * Errors are reported as they are reached: {@link #next()} throws the same
+ * {@link ParseException} the full lexer would, and an {@link IOException} from
+ * the underlying reader is rethrown as an {@link UncheckedIOException}.
+ */
+public final class StreamingLexer implements Iterator<Token> {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private final TableLexer lexer;
+    private Token next = null;
+    private boolean done = false;
+
+    public StreamingLexer(Reader reader) {
+        this(reader, DEFAULT_CAPACITY);
+    }
+
+    public StreamingLexer(Reader reader, int capacity) {
+        lexer = new TableLexer(new RingBuffer(reader, capacity), 0);
+    }
+
+    public StreamingLexer(ReadableByteChannel channel, Charset charset) {
+        this(channel, charset, DEFAULT_CAPACITY);
+    }
+
+    public StreamingLexer(ReadableByteChannel channel, Charset charset, int capacity) {
+        this(Channels.newReader(channel, charset.newDecoder(), capacity), capacity);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            next = lexer.next();
+            done = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public Token next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Token token = next;
+        next = null;
+        return token;
+    }
+
+    public Spliterator<Token> spliterator() {
+        return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    public Stream<Token> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * A ring buffer over a reader, addressed by absolute character index. The
+     * capacity is rounded up to a power of two so indices can be masked.
+     */
+    private static final class RingBuffer implements TableLexer.Input {
+
+        private final Reader reader;
+        private char[] buffer;
+        private int start = 0;
+        private int limit = 0;
+        private boolean eof = false;
+
+        private RingBuffer(Reader reader, int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("Invalid capacity " + capacity + ".");
+            }
+            int size = 1;
+            while (size < capacity) {
+                size <<= 1;
+            }
+            this.reader = reader;
+            this.buffer = new char[size];
+        }
+
+        @Override
+        public boolean has(int index) {
+            while (index >= limit && !eof) {
+                fill();
+            }
+            return index < limit;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return buffer[index & (buffer.length - 1)];
+        }
+
+        @Override
+        public Token emit(Token.Type type, int start, int end) {
+            StringBuilder builder = new StringBuilder(end - start);
+            for (int i = start; i < end; i++) {
+                builder.append(charAt(i));
+            }
+            return new Token(type, builder.toString(), start);
+        }
+
+        @Override
+        public void release(int index) {
+            start = index;
+        }
+
+        private void fill() {
+            if (limit - start == buffer.length) {
+                grow();
+            }
+            int position = limit & (buffer.length - 1);
+            int count = Math.min(buffer.length - (limit - start), buffer.length - position);
+            try {
+                int read = reader.read(buffer, position, count);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    limit += read;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Doubles the buffer when a single token fills it entirely, keeping
+         * the retained characters at the same absolute indices.
+         */
+        private void grow() {
+            char[] grown = new char[buffer.length * 2];
+            for (int i = start; i < limit; i++) {
+                grown[i & (grown.length - 1)] = charAt(i);
+            }
+            buffer = grown;
+        }
+
+    }
+
+}
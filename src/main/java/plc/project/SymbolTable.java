@@ -0,0 +1,153 @@
+package plc.project;
+
+import java.util.Arrays;
+
+/**
+ * Interns identifiers into integer symbol ids, so that repeated occurrences of
+ * an identifier share a single string and can be compared as ints.
+ *
+ * The keywords of the language are interned first with fixed ids (such as
+ * {@link #LET}), which allows the {@link Parser} to dispatch on the symbol of
+ * a token rather than comparing its literal. Note that keywords are still
+ * lexed as identifiers, so {@link #isKeyword(int)} is purely a classification.
+ *
+ * The table uses open addressing over an int array, and hashes identifiers
+ * directly from the source so looking up an existing symbol does not allocate.
+ */
+public final class SymbolTable {
+
+    public static final int LET = 0;
+    public static final int DEF = 1;
+    public static final int DO = 2;
+    public static final int END = 3;
+    public static final int IF = 4;
+    public static final int ELSE = 5;
+    public static final int FOR = 6;
+    public static final int IN = 7;
+    public static final int WHILE = 8;
+    public static final int RETURN = 9;
+    public static final int NIL = 10;
+    public static final int TRUE = 11;
+    public static final int FALSE = 12;
+    public static final int AND = 13;
+    public static final int OR = 14;
+
+    private static final String[] KEYWORDS = {
+            "LET", "DEF", "DO", "END", "IF", "ELSE", "FOR", "IN", "WHILE", "RETURN", "NIL", "TRUE", "FALSE", "AND", "OR"
+    };
+
+    private String[] names = new String[64];
+    private int[] hashes = new int[64];
+    private int[] slots = new int[128];
+    private int size = 0;
+
+    public SymbolTable() {
+        for (String keyword : KEYWORDS) {
+            intern(keyword, 0, keyword.length());
+        }
+    }
+
+    private SymbolTable(SymbolTable other) {
+        names = other.names.clone();
+        hashes = other.hashes.clone();
+        slots = other.slots.clone();
+        size = other.size;
+    }
+
+    /**
+     * Returns a table with the same symbols and ids as this one, which can
+     * be extended without changing this table. The table is not thread
+     * safe, so a buffer which may still be read elsewhere interns new
+     * symbols into a copy rather than its own table.
+     */
+    SymbolTable copy() {
+        return new SymbolTable(this);
+    }
+
+    /**
+     * Returns true if the symbol is one of the keywords of the language.
+     */
+    public static boolean isKeyword(int symbol) {
+        return symbol >= 0 && symbol < KEYWORDS.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getName(int symbol) {
+        if (symbol < 0 || symbol >= size) {
+            throw new IndexOutOfBoundsException("Unknown symbol " + symbol + ".");
+        }
+        return names[symbol];
+    }
+
+    /**
+     * Returns the symbol for the identifier in the range {@code [start, end)}
+     * of the source, adding it to the table if necessary.
+     */
+    public int intern(CharSequence source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int symbol = slots[slot] - 1;
+            if (symbol < 0) {
+                return insert(slot, hash, source.subSequence(start, end).toString());
+            } else if (hashes[symbol] == hash && regionEquals(names[symbol], source, start, end)) {
+                return symbol;
+            }
+        }
+    }
+
+    private int insert(int slot, int hash, String name) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        names[size] = name;
+        hashes[size] = hash;
+        slots[slot] = size + 1;
+        int symbol = size++;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return symbol;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int symbol = 0; symbol < size; symbol++) {
+            int slot = mix(hashes[symbol]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = symbol + 1;
+        }
+    }
+
+    /**
+     * Spreads the bits of the hash, since identifiers often differ only in
+     * their last characters.
+     */
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean regionEquals(String name, CharSequence source, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != source.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
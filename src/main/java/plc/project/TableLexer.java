@@ -0,0 +1,319 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A lexer which produces exactly the same tokens (and errors) as the regex
+ * based {@link Lexer}, but classifies characters through a precomputed table
+ * instead of compiling a regex for each character.
+ *
+ * Each ASCII character maps to a set of class flags (such as {@link #DIGIT}),
+ * so checking a character against a class is a single array lookup and mask.
+ * Characters outside of ASCII never belong to a class, which matches the
+ * behavior of the ASCII-only patterns in {@link Lexer}.
+ *
+ * This class is normally used through {@link Lexer.Engine#TABLE}.
+ */
+public final class TableLexer {
+
+    private static final int IDENTIFIER_INIT = 1;
+    private static final int IDENTIFIER_BODY = 1 << 1;
+    private static final int DIGIT = 1 << 2;
+    private static final int SIGN = 1 << 3;
+    private static final int WHITESPACE = 1 << 4;
+    private static final int OPERATOR = 1 << 5;
+    private static final int ESCAPE_BODY = 1 << 6;
+    private static final int LINE_BREAK = 1 << 7;
+
+    private static final int[] CLASSES = new int[128];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) {
+            CLASSES[c] |= IDENTIFIER_INIT | IDENTIFIER_BODY;
+            CLASSES[Character.toLowerCase(c)] |= IDENTIFIER_INIT | IDENTIFIER_BODY;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] |= DIGIT | IDENTIFIER_BODY;
+        }
+        CLASSES['_'] |= IDENTIFIER_INIT | IDENTIFIER_BODY;
+        CLASSES['-'] |= IDENTIFIER_BODY | SIGN;
+        CLASSES['+'] |= SIGN;
+        CLASSES['|'] |= SIGN; // matches the [+|\-] pattern used by Lexer
+        for (char c : new char[] {' ', '\b', '\n', '\r', '\t'}) {
+            CLASSES[c] |= WHITESPACE;
+        }
+        for (char c : new char[] {'<', '>', '!', '='}) {
+            CLASSES[c] |= OPERATOR;
+        }
+        for (char c = 0; c < CLASSES.length; c++) {
+            if (Escapes.isEscape(c)) {
+                CLASSES[c] |= ESCAPE_BODY;
+            }
+        }
+        CLASSES['\n'] |= LINE_BREAK;
+        CLASSES['\r'] |= LINE_BREAK;
+    }
+
+    private final Input input;
+    private int index;
+
+    public TableLexer(CharSequence input) {
+        this(input, 0, input.length());
+    }
+
+    /**
+     * Creates a lexer over the range {@code [start, end)} of the input. Token
+     * indices are still reported relative to the start of the input.
+     */
+    public TableLexer(CharSequence input, int start, int end) {
+        this(new SequenceInput(input, end), start);
+    }
+
+    TableLexer(Input input, int start) {
+        this.input = input;
+        this.index = start;
+    }
+
+    /**
+     * Lexes the remaining input, skipping whitespace between tokens.
+     */
+    public List<Token> lex() {
+        List<Token> tokens = new ArrayList<>();
+        for (Token token = next(); token != null; token = next()) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * Lexes the remaining input into the given buffer, whose source must be
+     * the input of this lexer. Unlike {@link #lex()}, no {@link Token} objects
+     * are created.
+     */
+    public TokenBuffer lex(TokenBuffer buffer) {
+        while (skipWhitespace()) {
+            lexInto(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Lexes the next token into the buffer, which must not start with
+     * whitespace (see {@link #skipWhitespace()}).
+     */
+    void lexInto(TokenBuffer buffer) {
+        int start = index;
+        Token.Type type = scan();
+        buffer.add(type, start, index);
+    }
+
+    /**
+     * Returns the index of the next character to be lexed.
+     */
+    int getIndex() {
+        return index;
+    }
+
+    /**
+     * Skips whitespace and lexes the next token, returning {@code null} once
+     * the input is exhausted.
+     */
+    public Token next() {
+        return skipWhitespace() ? lexToken() : null;
+    }
+
+    /**
+     * Lexes the next token, which must not start with whitespace.
+     */
+    public Token lexToken() {
+        int start = index;
+        Token.Type type = scan();
+        return input.emit(type, start, index);
+    }
+
+    /**
+     * Advances past whitespace, returning true if there is another token.
+     */
+    boolean skipWhitespace() {
+        input.release(index);
+        while (is(0, WHITESPACE)) {
+            input.release(++index);
+        }
+        return has(0);
+    }
+
+    /**
+     * Advances past the next token and returns its type. The cases are checked
+     * in the same order as {@link Lexer#lexToken()}.
+     */
+    private Token.Type scan() {
+        char c = input.charAt(index);
+        if (is(0, IDENTIFIER_INIT)) {
+            return lexIdentifier();
+        } else if (is(0, DIGIT) || is(0, SIGN) && is(1, DIGIT)) {
+            return lexNumber();
+        } else if (c == '\'') {
+            return lexCharacter();
+        } else if (c == '"') {
+            return lexString();
+        } else {
+            return lexOperator();
+        }
+    }
+
+    private Token.Type lexIdentifier() {
+        index++;
+        while (is(0, IDENTIFIER_BODY)) {
+            index++;
+        }
+        return Token.Type.IDENTIFIER;
+    }
+
+    private Token.Type lexNumber() {
+        index += is(0, SIGN) ? 2 : 1;
+        Token.Type type = Token.Type.INTEGER;
+        while (true) {
+            if (type == Token.Type.INTEGER && has(1) && input.charAt(index) == '.' && is(1, DIGIT)) {
+                index += 2;
+                type = Token.Type.DECIMAL;
+            }
+            if (!is(0, DIGIT)) {
+                return type;
+            }
+            index++;
+        }
+    }
+
+    private Token.Type lexCharacter() {
+        index++;
+        if (has(0) && input.charAt(index) == '\\') {
+            lexEscape();
+        } else if (isCharacterBody()) {
+            index++;
+        } else {
+            throw new ParseException("Invalid character: ", index);
+        }
+        if (has(0) && input.charAt(index) == '\'') {
+            index++;
+            return Token.Type.CHARACTER;
+        } else if (isCharacterBody()) {
+            throw new ParseException("Invalid length for Character literal: ", index);
+        } else {
+            throw new ParseException("Missing: '", index);
+        }
+    }
+
+    private Token.Type lexString() {
+        index++;
+        while (has(0) && input.charAt(index) != '"' && !is(0, LINE_BREAK)) {
+            if (input.charAt(index) == '\\') {
+                lexEscape();
+            } else {
+                index++;
+            }
+        }
+        if (has(0) && input.charAt(index) == '"') {
+            index++;
+            return Token.Type.STRING;
+        } else {
+            throw new ParseException("Unterminated string: ", index);
+        }
+    }
+
+    private void lexEscape() {
+        if (!is(1, ESCAPE_BODY)) {
+            throw new ParseException("Invalid escape: ", index);
+        }
+        index += 2;
+    }
+
+    private Token.Type lexOperator() {
+        index += is(0, OPERATOR) && has(1) && input.charAt(index + 1) == '=' ? 2 : 1;
+        return Token.Type.OPERATOR;
+    }
+
+    private boolean isCharacterBody() {
+        return has(0) && input.charAt(index) != '\'' && !is(0, LINE_BREAK);
+    }
+
+    private boolean has(int offset) {
+        return input.has(index + offset);
+    }
+
+    /**
+     * Returns true if the character at index + offset exists and belongs to
+     * any of the given class flags.
+     */
+    private boolean is(int offset, int classes) {
+        if (!has(offset)) {
+            return false;
+        }
+        char c = input.charAt(index + offset);
+        return c < CLASSES.length && (CLASSES[c] & classes) != 0;
+    }
+
+    /**
+     * The characters being lexed, addressed by their absolute index. This
+     * allows the same lexing code to run over in-memory sequences, bounded
+     * buffers which are filled on demand (see {@link StreamingLexer}) and
+     * memory-mapped files (see {@link MappedSource}).
+     */
+    interface Input {
+
+        /**
+         * Returns true if there is a character at the given index, reading
+         * more input if necessary.
+         */
+        boolean has(int index);
+
+        /**
+         * Returns the character at the given index, which must have been
+         * checked with {@link #has(int)}.
+         */
+        char charAt(int index);
+
+        /**
+         * Creates the token for the range {@code [start, end)}.
+         */
+        Token emit(Token.Type type, int start, int end);
+
+        /**
+         * Signals that characters before the given index will not be
+         * accessed again and may be discarded.
+         */
+        void release(int index);
+
+    }
+
+    private static final class SequenceInput implements Input {
+
+        private final CharSequence sequence;
+        private final int end;
+
+        private SequenceInput(CharSequence sequence, int end) {
+            this.sequence = sequence;
+            this.end = end;
+        }
+
+        @Override
+        public boolean has(int index) {
+            return index < end;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return sequence.charAt(index);
+        }
+
+        @Override
+        public Token emit(Token.Type type, int start, int end) {
+            return new Token(type, sequence.subSequence(start, end).toString(), start);
+        }
+
+        @Override
+        public void release(int index) {}
+
+    }
+
+}
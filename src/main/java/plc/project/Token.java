@@ -12,23 +12,50 @@ public final class Token {
     }
 
     private final Type type;
-    private final String literal;
+    private final CharSequence source;
+    private final int length;
     private final int index;
+    private String literal;
 
     public Token(Type type, String literal, int index) {
         this.type = type;
+        this.source = null;
+        this.length = literal.length();
         this.literal = literal;
         this.index = index;
     }
 
+    /**
+     * Creates a token referencing the range {@code [index, index + length)}
+     * of the source, which is only copied into a string once the literal is
+     * requested through {@link #getLiteral()}.
+     */
+    Token(Type type, CharSequence source, int index, int length) {
+        this.type = type;
+        this.source = source;
+        this.length = length;
+        this.literal = null;
+        this.index = index;
+    }
+
     public Type getType() {
         return type;
     }
 
     public String getLiteral() {
+        if (literal == null) {
+            literal = source.subSequence(index, index + length).toString();
+        }
         return literal;
     }
 
+    /**
+     * Returns the length of the literal without materializing it.
+     */
+    public int getLength() {
+        return length;
+    }
+
     public int getIndex() {
         return index;
     }
@@ -37,13 +64,13 @@ public final class Token {
     public boolean equals(Object obj) {
         return obj instanceof Token
                 && type == ((Token) obj).type
-                && literal.equals(((Token) obj).literal)
+                && getLiteral().equals(((Token) obj).getLiteral())
                 && index == ((Token) obj).index;
     }
 
     @Override
     public String toString() {
-        return type + "=" + literal + "@" + index;
+        return type + "=" + getLiteral() + "@" + index;
     }
 
 }
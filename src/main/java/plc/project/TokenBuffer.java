@@ -0,0 +1,297 @@
+package plc.project;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A compact sequence of tokens stored as parallel arrays over a shared source,
+ * instead of one {@link Token} object and literal string per token.
+ *
+ * Each token costs a type byte plus its index, length and symbol id (see
+ * below), 13 bytes in all. Buffers copied from a list of tokens by {@link
+ * #of(List)} also store each token's offset into their new source, 17 bytes
+ * per token. Literals are only copied out of the source when they are
+ * requested, and can also be compared in place with {@link
+ * #literalEquals(int, String)}, which is how the {@link Parser} checks for
+ * operators.
+ *
+ * Identifiers are interned into a {@link SymbolTable} as they are added, so
+ * each token also records its symbol id ({@code -1} for other tokens). The
+ * parser dispatches on keyword symbols, and the literals of identifiers are
+ * shared strings from the table.
+ *
+ * {@link #asList()} provides a {@code List<Token>} view for code which works
+ * with individual tokens; the tokens it returns are created on access.
+ */
+public final class TokenBuffer {
+
+    private static final Token.Type[] TYPES = Token.Type.values();
+
+    private final CharSequence source;
+    private final SymbolTable symbols;
+    private byte[] types;
+    private int[] indices;
+    private int[] offsets;
+    private int[] lengths;
+    private int[] symbolIds;
+    private int size = 0;
+
+    /**
+     * Creates an empty buffer for tokens which are slices of the source, such
+     * that each token's index is also its offset into the source.
+     */
+    public TokenBuffer(CharSequence source) {
+        this(source, 16);
+    }
+
+    public TokenBuffer(CharSequence source, int capacity) {
+        this(source, capacity, new SymbolTable());
+    }
+
+    /**
+     * Creates an empty buffer interning into the given table, which may be
+     * a copy of another buffer's table so that symbol ids can be copied
+     * between them (see {@link #copy}).
+     */
+    TokenBuffer(CharSequence source, int capacity, SymbolTable symbols) {
+        this.source = source;
+        this.symbols = symbols;
+        this.types = new byte[capacity];
+        this.indices = new int[capacity];
+        this.offsets = indices;
+        this.lengths = new int[capacity];
+        this.symbolIds = new int[capacity];
+    }
+
+    /**
+     * Copies a list of tokens into a buffer. Since the tokens may not share a
+     * source, their literals are concatenated into a new one.
+     */
+    public static TokenBuffer of(List<Token> tokens) {
+        StringBuilder builder = new StringBuilder();
+        for (Token token : tokens) {
+            builder.append(token.getLiteral());
+        }
+        TokenBuffer buffer = new TokenBuffer(builder, tokens.size());
+        buffer.offsets = new int[tokens.size()];
+        int offset = 0;
+        for (Token token : tokens) {
+            buffer.append(token.getType(), token.getIndex(), offset, token.getLength());
+            offset += token.getLength();
+        }
+        return buffer;
+    }
+
+    /**
+     * Adds a token spanning {@code [start, end)} of the source.
+     */
+    public void add(Token.Type type, int start, int end) {
+        append(type, start, start, end - start);
+    }
+
+    /**
+     * Appends the given range of tokens from another buffer whose symbols
+     * have the same ids, such as one whose table was copied into this one's,
+     * moving their indices by {@code shift}. Both buffers must consist of
+     * slices of their source.
+     */
+    void copy(TokenBuffer from, int start, int end, int shift) {
+        for (int i = start; i < end; i++) {
+            append(from.getType(i), from.indices[i] + shift, from.indices[i] + shift, from.lengths[i], from.symbolIds[i]);
+        }
+    }
+
+    /**
+     * Appends all tokens of another buffer over the same source, mapping its
+     * symbols into this buffer's table. Each distinct symbol is interned once
+     * rather than once per token.
+     */
+    void append(TokenBuffer other) {
+        int[] mapping = new int[other.symbols.size()];
+        Arrays.fill(mapping, -1);
+        for (int i = 0; i < other.size; i++) {
+            int symbol = other.symbolIds[i];
+            if (symbol >= 0 && mapping[symbol] < 0) {
+                String name = other.symbols.getName(symbol);
+                mapping[symbol] = symbols.intern(name, 0, name.length());
+            }
+            append(other.getType(i), other.indices[i], other.offsets[i], other.lengths[i], symbol >= 0 ? mapping[symbol] : -1);
+        }
+    }
+
+    /**
+     * Returns true if every token is a slice of the source at its index, as
+     * is the case for buffers created by the lexer.
+     */
+    boolean isSliced() {
+        return offsets == indices;
+    }
+
+    /**
+     * Returns the position of the first token with an index of at least the
+     * given index, or {@link #size()} if there is none.
+     */
+    int search(int index) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (indices[middle] < index) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public CharSequence getSource() {
+        return source;
+    }
+
+    private void append(Token.Type type, int index, int offset, int length) {
+        append(type, index, offset, length, type == Token.Type.IDENTIFIER ? symbols.intern(source, offset, offset + length) : -1);
+    }
+
+    private void append(Token.Type type, int index, int offset, int length, int symbol) {
+        if (size == types.length) {
+            int capacity = Math.max(16, size + (size >> 1));
+            types = Arrays.copyOf(types, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            symbolIds = Arrays.copyOf(symbolIds, capacity);
+            boolean shared = offsets == indices;
+            indices = Arrays.copyOf(indices, capacity);
+            offsets = shared ? indices : Arrays.copyOf(offsets, capacity);
+        }
+        types[size] = (byte) type.ordinal();
+        indices[size] = index;
+        offsets[size] = offset;
+        lengths[size] = length;
+        symbolIds[size] = symbol;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Token.Type getType(int i) {
+        return TYPES[types[checkIndex(i)]];
+    }
+
+    public int getIndex(int i) {
+        return indices[checkIndex(i)];
+    }
+
+    public int getLength(int i) {
+        return lengths[checkIndex(i)];
+    }
+
+    /**
+     * Returns the symbol id of an identifier token, or {@code -1} if the token
+     * is not an identifier.
+     */
+    public int getSymbol(int i) {
+        return symbolIds[checkIndex(i)];
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    public String getLiteral(int i) {
+        if (symbolIds[checkIndex(i)] >= 0) {
+            return symbols.getName(symbolIds[i]);
+        }
+        int offset = offsets[i];
+        return source.subSequence(offset, offset + lengths[i]).toString();
+    }
+
+    /**
+     * Returns the decoded value of a string or character literal, without its
+     * quotes, decoding directly from the source (see {@link Escapes}).
+     */
+    public String getUnescapedLiteral(int i) {
+        int offset = offsets[checkIndex(i)];
+        return Escapes.unescape(source, offset + 1, offset + lengths[i] - 1);
+    }
+
+    /**
+     * Returns the character at the given position of the token's literal.
+     */
+    public char charAt(int i, int position) {
+        if (position < 0 || position >= lengths[checkIndex(i)]) {
+            throw new IndexOutOfBoundsException("Position " + position + " out of bounds for length " + lengths[i] + ".");
+        }
+        return source.charAt(offsets[i] + position);
+    }
+
+    /**
+     * Returns true if the literal of the token is equal to the given string,
+     * comparing against the source without copying the literal.
+     */
+    public boolean literalEquals(int i, String literal) {
+        if (lengths[checkIndex(i)] != literal.length()) {
+            return false;
+        }
+        int offset = offsets[i];
+        for (int j = 0; j < literal.length(); j++) {
+            if (source.charAt(offset + j) != literal.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Token get(int i) {
+        if (offsets == indices && symbolIds[checkIndex(i)] < 0) {
+            return new Token(getType(i), source, indices[i], lengths[i]);
+        }
+        return new Token(getType(i), getLiteral(i), indices[i]);
+    }
+
+    /**
+     * Returns a read-only list view of the tokens in this buffer.
+     */
+    public List<Token> asList() {
+        return new View(this);
+    }
+
+    private int checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for size " + size + ".");
+        }
+        return i;
+    }
+
+    /**
+     * The list view returned by {@link #asList()}, which the {@link Parser}
+     * unwraps to use the buffer directly.
+     */
+    static final class View extends AbstractList<Token> implements RandomAccess {
+
+        private final TokenBuffer buffer;
+
+        private View(TokenBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        TokenBuffer getBuffer() {
+            return buffer;
+        }
+
+        @Override
+        public Token get(int index) {
+            return buffer.get(index);
+        }
+
+        @Override
+        public int size() {
+            return buffer.size;
+        }
+
+    }
+
+}
@@ -1,14 +1,23 @@
 package plc.project;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -30,7 +39,7 @@ public final class AnalyzerTests {
     public void testSource(String test, Ast.Source ast, Ast.Source expected) {
         Analyzer analyzer = test(ast, expected, new Scope(null));
         if (expected != null) {
-            expected.getFields().forEach(field -> Assertions.assertEquals(field, analyzer.scope.lookupVariable(field.getName())));
+            expected.getFields().forEach(field -> Assertions.assertEquals(field.getVariable(), analyzer.scope.lookupVariable(field.getName())));
             expected.getMethods().forEach(method -> Assertions.assertEquals(method.getFunction(), analyzer.scope.lookupFunction(method.getName(), method.getParameters().size())));
         }
     }
@@ -61,6 +70,31 @@ public final class AnalyzerTests {
                                 )
                         ),
                         null
+                ),
+                // LET x: Integer = 1; DEF main(): Integer DO RETURN x; END
+                Arguments.of("Field Access",
+                        new Ast.Source(
+                                Arrays.asList(
+                                        new Ast.Field("x", "Integer", Optional.of(new Ast.Expr.Literal(BigInteger.ONE)))
+                                ),
+                                Arrays.asList(
+                                        new Ast.Method("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                                                new Ast.Stmt.Return(new Ast.Expr.Access(Optional.empty(), "x")))
+                                        )
+                                )
+                        ),
+                        new Ast.Source(
+                                Arrays.asList(
+                                        init(new Ast.Field("x", "Integer", Optional.of(
+                                                init(new Ast.Expr.Literal(BigInteger.ONE), ast -> ast.setType(Environment.Type.INTEGER))
+                                        )), ast -> ast.setVariable(new Environment.Variable("x", "x", Environment.Type.INTEGER, Environment.NIL)))
+                                ),
+                                Arrays.asList(
+                                        init(new Ast.Method("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                                                new Ast.Stmt.Return(init(new Ast.Expr.Access(Optional.empty(), "x"), ast -> ast.setVariable(new Environment.Variable("x", "x", Environment.Type.INTEGER, Environment.NIL)))))
+                                        ), ast -> ast.setFunction(new Environment.Function("main", "main", Arrays.asList(), Environment.Type.INTEGER, args -> Environment.NIL)))
+                                )
+                        )
                 )
         );
     }
@@ -80,6 +114,8 @@ public final class AnalyzerTests {
      *
      Hello World: DEF main(): Integer DO print("Hello, World!"); END
      Return Type Mismatch: DEF increment(num: Integer): Decimal DO RETURN num + 1; END
+     Parameters: DEF increment(num: Integer): Integer DO RETURN num + 1; END
+     Comparable Parameters: DEF less(a: Comparable, b: Comparable): Boolean DO RETURN a < b; END
 
      */
     private static Stream<Arguments> testMethod() {
@@ -106,6 +142,36 @@ public final class AnalyzerTests {
                                 ))
                         )),
                         null
+                ),
+                Arguments.of("Parameters",
+                        // DEF increment(num: Integer): Integer DO RETURN num + 1; END
+                        new Ast.Method("increment", Arrays.asList("num"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Stmt.Return(new Ast.Expr.Binary("+",
+                                        new Ast.Expr.Access(Optional.empty(), "num"),
+                                        new Ast.Expr.Literal(BigInteger.ONE)
+                                ))
+                        )),
+                        init(new Ast.Method("increment", Arrays.asList("num"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                                new Ast.Stmt.Return(init(new Ast.Expr.Binary("+",
+                                        init(new Ast.Expr.Access(Optional.empty(), "num"), ast -> ast.setVariable(new Environment.Variable("num", "num", Environment.Type.INTEGER, Environment.NIL))),
+                                        init(new Ast.Expr.Literal(BigInteger.ONE), ast -> ast.setType(Environment.Type.INTEGER))
+                                ), ast -> ast.setType(Environment.Type.INTEGER)))
+                        )), ast -> ast.setFunction(new Environment.Function("increment", "increment", Arrays.asList(Environment.Type.INTEGER), Environment.Type.INTEGER, args -> Environment.NIL)))
+                ),
+                Arguments.of("Comparable Parameters",
+                        // DEF less(a: Comparable, b: Comparable): Boolean DO RETURN a < b; END
+                        new Ast.Method("less", Arrays.asList("a", "b"), Arrays.asList("Comparable", "Comparable"), Optional.of("Boolean"), Arrays.asList(
+                                new Ast.Stmt.Return(new Ast.Expr.Binary("<",
+                                        new Ast.Expr.Access(Optional.empty(), "a"),
+                                        new Ast.Expr.Access(Optional.empty(), "b")
+                                ))
+                        )),
+                        init(new Ast.Method("less", Arrays.asList("a", "b"), Arrays.asList("Comparable", "Comparable"), Optional.of("Boolean"), Arrays.asList(
+                                new Ast.Stmt.Return(init(new Ast.Expr.Binary("<",
+                                        init(new Ast.Expr.Access(Optional.empty(), "a"), ast -> ast.setVariable(new Environment.Variable("a", "a", Environment.Type.COMPARABLE, Environment.NIL))),
+                                        init(new Ast.Expr.Access(Optional.empty(), "b"), ast -> ast.setVariable(new Environment.Variable("b", "b", Environment.Type.COMPARABLE, Environment.NIL)))
+                                ), ast -> ast.setType(Environment.Type.BOOLEAN)))
+                        )), ast -> ast.setFunction(new Environment.Function("less", "less", Arrays.asList(Environment.Type.COMPARABLE, Environment.Type.COMPARABLE), Environment.Type.BOOLEAN, args -> Environment.NIL)))
                 )
         );
     }
@@ -343,6 +409,25 @@ public final class AnalyzerTests {
                                 new Ast.Expr.Literal(BigDecimal.ONE)
                         ),
                         null
+                ),
+                Arguments.of("Integer Comparison",
+                        // 1 < 10
+                        new Ast.Expr.Binary("<",
+                                new Ast.Expr.Literal(BigInteger.ONE),
+                                new Ast.Expr.Literal(BigInteger.TEN)
+                        ),
+                        init(new Ast.Expr.Binary("<",
+                                init(new Ast.Expr.Literal(BigInteger.ONE), ast -> ast.setType(Environment.Type.INTEGER)),
+                                init(new Ast.Expr.Literal(BigInteger.TEN), ast -> ast.setType(Environment.Type.INTEGER))
+                        ), ast -> ast.setType(Environment.Type.BOOLEAN))
+                ),
+                Arguments.of("Boolean Comparison",
+                        // TRUE < FALSE
+                        new Ast.Expr.Binary("<",
+                                new Ast.Expr.Literal(Boolean.TRUE),
+                                new Ast.Expr.Literal(Boolean.FALSE)
+                        ),
+                        null
                 )
         );
     }
@@ -403,6 +488,101 @@ public final class AnalyzerTests {
         );
     }
 
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    public void testNamespace(String test, String typeName, String expected) {
+        Environment.Namespace first = new Environment.Namespace();
+        Environment.Namespace second = new Environment.Namespace();
+        first.registerType(new Environment.Type("Point", "FirstPoint", new Scope(null)));
+        second.registerType(new Environment.Type("Point", "SecondPoint", new Scope(null)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> first.registerType(new Environment.Type("Point", "Point", new Scope(null))));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> first.registerType(new Environment.Type("Integer", "Integer", new Scope(null))));
+        Ast.Stmt.Declaration ast = new Ast.Stmt.Declaration("name", Optional.of(typeName), Optional.empty());
+        Analyzer analyzer = new Analyzer(new Scope(null), first);
+        if (expected != null) {
+            analyzer.visit(ast);
+            Assertions.assertEquals(expected, ast.getVariable().getType().getJvmName());
+        } else {
+            Assertions.assertThrows(RuntimeException.class, () -> analyzer.visit(ast));
+        }
+    }
+
+    private static Stream<Arguments> testNamespace() {
+        return Stream.of(
+                Arguments.of("Unit Type", "Point", "FirstPoint"),
+                Arguments.of("Global Type", "Integer", "int"),
+                Arguments.of("Unknown Type", "Line", null)
+        );
+    }
+
+    /**
+     * Registers the same names in a root namespace, standing in for the
+     * global types, and in several of its children from different threads at
+     * once. Exactly one root registration succeeds, at most one per child
+     * does, and each child then sees its own type if it registered one and
+     * the root's type otherwise. Each round uses a fresh root, so the test
+     * leaves the global types alone and can run again in the same JVM.
+     */
+    @Test
+    public void testNamespaceParallel() throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 50; round++) {
+                String name = "ParallelType" + round;
+                CountDownLatch start = new CountDownLatch(1);
+                Environment.Namespace root = new Environment.Namespace(null);
+                List<Future<Environment.Type>> globals = new ArrayList<>();
+                for (int i = 0; i < 2; i++) {
+                    globals.add(executor.submit(register(start, name, root::registerType)));
+                }
+                List<Environment.Namespace> namespaces = new ArrayList<>();
+                List<List<Future<Environment.Type>>> units = new ArrayList<>();
+                for (int i = 0; i < 3; i++) {
+                    Environment.Namespace namespace = new Environment.Namespace(root);
+                    List<Future<Environment.Type>> registrations = new ArrayList<>();
+                    for (int j = 0; j < 2; j++) {
+                        registrations.add(executor.submit(register(start, name, namespace::registerType)));
+                    }
+                    namespaces.add(namespace);
+                    units.add(registrations);
+                }
+                start.countDown();
+                List<Environment.Type> global = registered(globals);
+                Assertions.assertEquals(1, global.size());
+                for (int i = 0; i < namespaces.size(); i++) {
+                    List<Environment.Type> unit = registered(units.get(i));
+                    Assertions.assertTrue(unit.size() <= 1);
+                    Assertions.assertSame(unit.isEmpty() ? global.get(0) : unit.get(0), namespaces.get(i).getType(name));
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Callable<Environment.Type> register(CountDownLatch start, String name, Consumer<Environment.Type> registry) {
+        return () -> {
+            Environment.Type type = new Environment.Type(name, name, new Scope(null));
+            start.await();
+            try {
+                registry.accept(type);
+                return type;
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        };
+    }
+
+    private static List<Environment.Type> registered(List<Future<Environment.Type>> registrations) throws InterruptedException, ExecutionException {
+        List<Environment.Type> types = new ArrayList<>();
+        for (Future<Environment.Type> registration : registrations) {
+            if (registration.get() != null) {
+                types.add(registration.get());
+            }
+        }
+        return types;
+    }
+
     @ParameterizedTest(name = "{0}")
     @MethodSource
     public void testRequireAssignable(String test, Environment.Type target, Environment.Type type, boolean success) {
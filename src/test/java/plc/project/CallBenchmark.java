@@ -0,0 +1,58 @@
+package plc.project;
+
+import java.math.BigInteger;
+
+/**
+ * Measures the cost of a call in the {@link Interpreter} on small recursive
+ * methods, where returning a value dominates. Run with
+ * {@code gradle benchmark -Pbenchmark=CallBenchmark}.
+ */
+final class CallBenchmark {
+
+    private static final String FIB = "DEF fib(n: Integer): Integer DO\n" +
+            "    IF n < 2 DO RETURN n; END\n" +
+            "    RETURN fib(n - 1) + fib(n - 2);\n" +
+            "END\n" +
+            "DEF main() DO RETURN fib(20); END";
+
+    private static final String DEPTH = "DEF depth(n: Integer): Integer DO\n" +
+            "    IF n == 0 DO RETURN 0; END\n" +
+            "    WHILE TRUE DO RETURN depth(n - 1) + 1; END\n" +
+            "END\n" +
+            "DEF main() DO\n" +
+            "    LET i = 0;\n" +
+            "    WHILE i < 100 DO depth(200); i = i + 1; END\n" +
+            "    RETURN depth(200);\n" +
+            "END";
+
+    public static void main(String[] args) throws InterruptedException {
+        //Deep recursion in the interpreter needs a larger stack.
+        Thread thread = new Thread(null, CallBenchmark::run, "benchmark", 1 << 28);
+        thread.start();
+        thread.join();
+    }
+
+    private static void run() {
+        benchmark("Fibonacci", FIB, 21891, BigInteger.valueOf(6765));
+        benchmark("Return from loop", DEPTH, 101 * 201, BigInteger.valueOf(200));
+    }
+
+    private static void benchmark(String name, String input, int calls, Object expected) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        Object result = new Interpreter(new Scope(null)).execute(ast).getValue();
+        if (!expected.equals(result)) {
+            throw new AssertionError(name + " returned " + result + " instead of " + expected + ".");
+        }
+        for (int i = 0; i < 10; i++) {
+            new Interpreter(new Scope(null)).execute(ast);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long start = System.nanoTime();
+            new Interpreter(new Scope(null)).execute(ast);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-20s %8.1f ns/call%n", name + ":", (double) best / calls);
+    }
+
+}
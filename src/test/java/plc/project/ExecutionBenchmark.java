@@ -0,0 +1,91 @@
+package plc.project;
+
+import java.util.function.Supplier;
+
+/**
+ * Compares the execution engines on loop heavy and call heavy programs
+ * (with and without the types the JIT compiler requires), and on a hot
+ * method called from a loop. Run with
+ * {@code gradle benchmark -Pbenchmark=ExecutionBenchmark}; programs are
+ * parsed once, so compilation is included but lexing and parsing are not.
+ */
+final class ExecutionBenchmark {
+
+    private static final String LOOP = "DEF main() DO\n" +
+            "    LET sum = 0;\n" +
+            "    LET i = 0;\n" +
+            "    WHILE i < 100000 DO\n" +
+            "        IF i / 3 * 3 == i OR i / 5 * 5 == i DO sum = sum + i; END\n" +
+            "        i = i + 1;\n" +
+            "    END\n" +
+            "    RETURN sum;\n" +
+            "END";
+
+    private static final String CALLS = "DEF fib(n: Integer) DO\n" +
+            "    IF n < 2 DO RETURN n; END\n" +
+            "    RETURN fib(n - 1) + fib(n - 2);\n" +
+            "END\n" +
+            "DEF main() DO RETURN fib(20); END";
+
+    /**
+     * The same calls as {@link #CALLS}, but with a declared return type so
+     * that the method is eligible for the {@link JitCompiler}.
+     */
+    private static final String TYPED_CALLS = "DEF fib(n: Integer): Integer DO\n" +
+            "    IF n < 2 DO RETURN n; END\n" +
+            "    RETURN fib(n - 1) + fib(n - 2);\n" +
+            "END\n" +
+            "DEF main() DO RETURN fib(20); END";
+
+    private static final String HOT = "DEF steps(n: Integer): Integer DO\n" +
+            "    LET steps = 0;\n" +
+            "    WHILE n != 1 DO\n" +
+            "        IF n / 2 * 2 == n DO n = n / 2; ELSE n = 3 * n + 1; END\n" +
+            "        steps = steps + 1;\n" +
+            "    END\n" +
+            "    RETURN steps;\n" +
+            "END\n" +
+            "DEF main() DO\n" +
+            "    LET total = 0;\n" +
+            "    LET i = 1;\n" +
+            "    WHILE i < 5000 DO total = total + steps(i); i = i + 1; END\n" +
+            "    RETURN total;\n" +
+            "END";
+
+    public static void main(String[] args) {
+        benchmark("Loop", LOOP);
+        benchmark("Calls", CALLS);
+        benchmark("Typed Calls", TYPED_CALLS);
+        benchmark("Hot", HOT);
+    }
+
+    private static void benchmark(String name, String input) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        Object expected = ExecutionEngine.Kind.INTERPRETER.create(new Scope(null)).execute(ast).getValue();
+        System.out.println(name + ":");
+        for (ExecutionEngine.Kind kind : ExecutionEngine.Kind.values()) {
+            Object result = kind.create(new Scope(null)).execute(ast).getValue();
+            if (!expected.equals(result)) {
+                throw new AssertionError(kind + " returned " + result + " instead of " + expected + ".");
+            }
+            System.out.printf("  %-16s %10.2f ms/run%n", kind, time(() -> kind.create(new Scope(null)).execute(ast)) / 1e6);
+        }
+    }
+
+    /**
+     * Returns the fastest of several runs in nanoseconds, after warming up.
+     */
+    private static double time(Supplier<?> supplier) {
+        for (int i = 0; i < 10; i++) {
+            supplier.get();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            long start = System.nanoTime();
+            supplier.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+}
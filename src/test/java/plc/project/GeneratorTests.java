@@ -1,16 +1,25 @@
 package plc.project;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -52,6 +61,44 @@ public class GeneratorTests {
                                 "",
                                 "}"
                         )
+                ),
+                Arguments.of("Fields & Parameters",
+                        // LET total: Integer = 1;
+                        // DEF add(value: Integer): Integer DO
+                        //     total = (total + value);
+                        //     RETURN total;
+                        // END
+                        new Ast.Source(
+                                Arrays.asList(init(new Ast.Field("total", "Integer", Optional.of(
+                                        init(new Ast.Expr.Literal(BigInteger.ONE), ast -> ast.setType(Environment.Type.INTEGER))
+                                )), ast -> ast.setVariable(new Environment.Variable("total", "total", Environment.Type.INTEGER, Environment.NIL)))),
+                                Arrays.asList(init(new Ast.Method("add", Arrays.asList("value"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                                        new Ast.Stmt.Assignment(
+                                                init(new Ast.Expr.Access(Optional.empty(), "total"), ast -> ast.setVariable(new Environment.Variable("total", "total", Environment.Type.INTEGER, Environment.NIL))),
+                                                init(new Ast.Expr.Group(init(new Ast.Expr.Binary("+",
+                                                        init(new Ast.Expr.Access(Optional.empty(), "total"), ast -> ast.setVariable(new Environment.Variable("total", "total", Environment.Type.INTEGER, Environment.NIL))),
+                                                        init(new Ast.Expr.Access(Optional.empty(), "value"), ast -> ast.setVariable(new Environment.Variable("value", "value", Environment.Type.INTEGER, Environment.NIL)))
+                                                ), ast -> ast.setType(Environment.Type.INTEGER))), ast -> ast.setType(Environment.Type.INTEGER))
+                                        ),
+                                        new Ast.Stmt.Return(init(new Ast.Expr.Access(Optional.empty(), "total"), ast -> ast.setVariable(new Environment.Variable("total", "total", Environment.Type.INTEGER, Environment.NIL))))
+                                )), ast -> ast.setFunction(new Environment.Function("add", "add", Arrays.asList(Environment.Type.INTEGER), Environment.Type.INTEGER, args -> Environment.NIL))))
+                        ),
+                        String.join(System.lineSeparator(),
+                                "public class Main {",
+                                "",
+                                "    int total = 1;",
+                                "",
+                                "    public static void main(String[] args) {",
+                                "        System.exit(new Main().main());",
+                                "    }",
+                                "",
+                                "    int add(int value) {",
+                                "        total = (total + value);",
+                                "        return total;",
+                                "    }",
+                                "",
+                                "}"
+                        )
                 )
         );
     }
@@ -179,6 +226,69 @@ public class GeneratorTests {
         );
     }
 
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testGeneratedProgram(String test, String input, String output, Integer expected) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        if (expected == null) {
+            Assertions.assertThrows(RuntimeException.class, () -> GeneratedProgram.compile(ast));
+            return;
+        }
+        GeneratedProgram program = GeneratedProgram.compile(ast);
+        Assertions.assertSame(program, GeneratedProgram.compile(new Parser(new Lexer(input).lex()).parseSource()));
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            Assertions.assertEquals((int) expected, program.run());
+        } finally {
+            System.setOut(sysout);
+        }
+        Assertions.assertEquals(output.replace("\n", System.lineSeparator()), out.toString());
+    }
+
+    private static Stream<Arguments> testGeneratedProgram() {
+        return Stream.of(
+                Arguments.of("Hello, World!",
+                        "DEF main(): Integer DO print(\"Hello, World!\"); RETURN 0; END",
+                        "Hello, World!\n", 0
+                ),
+                Arguments.of("Fields And Methods",
+                        "LET base: Integer = 10;\n" +
+                        "DEF square(x: Integer): Integer DO RETURN x * x; END\n" +
+                        "DEF main(): Integer DO\n" +
+                        "    LET i = 0;\n" +
+                        "    WHILE i < 3 DO print(base + square(i)); i = i + 1; END\n" +
+                        "    RETURN square(3);\n" +
+                        "END",
+                        "10\n11\n14\n", 9
+                ),
+                Arguments.of("Invalid Main",
+                        "DEF main() DO RETURN 0; END",
+                        "", null
+                )
+        );
+    }
+
+    @Test
+    void testGeneratedProgramConcurrently() throws InterruptedException, ExecutionException {
+        String input = "DEF main(): Integer DO RETURN 42; END";
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<GeneratedProgram>> programs = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                programs.add(executor.submit(() -> GeneratedProgram.compile(new Parser(new Lexer(input).lex()).parseSource())));
+            }
+            GeneratedProgram program = programs.get(0).get();
+            for (Future<GeneratedProgram> other : programs) {
+                Assertions.assertSame(program, other.get());
+            }
+            Assertions.assertEquals(42, program.run());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     /**
      * Helper function for tests, using a StringWriter as the output stream.
      */
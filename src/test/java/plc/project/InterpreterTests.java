@@ -4,10 +4,13 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.ref.WeakReference;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Arrays;
@@ -21,12 +24,12 @@ final class InterpreterTests {
 
     @ParameterizedTest
     @MethodSource
-    void testSource(String test, Ast.Source ast, Object expected) {
-        test(ast, expected, new Scope(null));
+    void testSource(String test, Ast.Source ast, Object expected, ExecutionEngine.Kind kind) {
+        test(ast, expected, new Scope(null), kind);
     }
 
     private static Stream<Arguments> testSource() {
-        return Stream.of(
+        return engines(
                 Arguments.of("Main", new Ast.Source(
                         Arrays.asList(),
                         Arrays.asList(new Ast.Method("main", Arrays.asList(), Arrays.asList(
@@ -43,19 +46,32 @@ final class InterpreterTests {
                                         new Ast.Expr.Access(Optional.empty(), "x"),
                                         new Ast.Expr.Access(Optional.empty(), "y")                                ))
                         )))
-                ), Environment.NIL.getValue())
+                ), Environment.NIL.getValue()),
+                Arguments.of("Scope After Call", new Ast.Source(
+                        Arrays.asList(),
+                        Arrays.asList(
+                                new Ast.Method("f", Arrays.asList(), Arrays.asList(
+                                        new Ast.Stmt.Declaration("x", Optional.of(new Ast.Expr.Literal(BigInteger.TEN)))
+                                )),
+                                new Ast.Method("main", Arrays.asList(), Arrays.asList(
+                                        new Ast.Stmt.Declaration("x", Optional.of(new Ast.Expr.Literal(BigInteger.ONE))),
+                                        new Ast.Stmt.Expression(new Ast.Expr.Function(Optional.empty(), "f", Arrays.asList())),
+                                        new Ast.Stmt.Return(new Ast.Expr.Access(Optional.empty(), "x"))
+                                ))
+                        )
+                ), BigInteger.ONE)
         );
     }
 
     @ParameterizedTest
     @MethodSource
-    void testField(String test, Ast.Field ast, Object expected) {
-        Scope scope = test(ast, Environment.NIL.getValue(), new Scope(null));
+    void testField(String test, Ast.Field ast, Object expected, ExecutionEngine.Kind kind) {
+        Scope scope = test(ast, Environment.NIL.getValue(), new Scope(null), kind);
         Assertions.assertEquals(expected, scope.lookupVariable(ast.getName()).getValue().getValue());
     }
 
     private static Stream<Arguments> testField() {
-        return Stream.of(
+        return engines(
                 Arguments.of("Declaration", new Ast.Field("name", Optional.empty()), Environment.NIL.getValue()),
                 Arguments.of("Initialization", new Ast.Field("name", Optional.of(new Ast.Expr.Literal(BigInteger.ONE))), BigInteger.ONE)
         );
@@ -63,13 +79,13 @@ final class InterpreterTests {
 
     @ParameterizedTest
     @MethodSource
-    void testMethod(String test, Ast.Method ast, List<Environment.PlcObject> args, Object expected) {
-        Scope scope = test(ast, Environment.NIL.getValue(), new Scope(null));
+    void testMethod(String test, Ast.Method ast, List<Environment.PlcObject> args, Object expected, ExecutionEngine.Kind kind) {
+        Scope scope = test(ast, Environment.NIL.getValue(), new Scope(null), kind);
         Assertions.assertEquals(expected, scope.lookupFunction(ast.getName(), args.size()).invoke(args).getValue());
     }
 
     private static Stream<Arguments> testMethod() {
-        return Stream.of(
+        return engines(
                 Arguments.of("Main",
                         new Ast.Method("main", Arrays.asList(), Arrays.asList(
                                 new Ast.Stmt.Return(new Ast.Expr.Literal(BigInteger.ZERO)))
@@ -90,8 +106,9 @@ final class InterpreterTests {
         );
     }
 
-    @Test
-    void testMethodScope() {
+    @ParameterizedTest
+    @EnumSource(ExecutionEngine.Kind.class)
+    void testMethodScope(ExecutionEngine.Kind kind) {
         test(
                 new Ast.Source(
                         Arrays.asList(
@@ -119,18 +136,19 @@ final class InterpreterTests {
                         )
                 ),
                 BigInteger.valueOf(8),
-                new Scope(null));
+                new Scope(null), kind);
     }
 
-    @Test
-    void testExpressionStatement() {
+    @ParameterizedTest
+    @EnumSource(ExecutionEngine.Kind.class)
+    void testExpressionStatement(ExecutionEngine.Kind kind) {
         PrintStream sysout = System.out;
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         System.setOut(new PrintStream(out));
         try {
             test(new Ast.Stmt.Expression(
                     new Ast.Expr.Function(Optional.empty(), "print", Arrays.asList(new Ast.Expr.Literal("Hello, World!")))
-            ), Environment.NIL.getValue(), new Scope(null));
+            ), Environment.NIL.getValue(), new Scope(null), kind);
             Assertions.assertEquals("Hello, World!" + System.lineSeparator(), out.toString());
         } finally {
             System.setOut(sysout);
@@ -139,13 +157,13 @@ final class InterpreterTests {
 
     @ParameterizedTest
     @MethodSource
-    void testDeclarationStatement(String test, Ast.Stmt.Declaration ast, Object expected) {
-        Scope scope = test(ast, Environment.NIL.getValue(), new Scope(null));
+    void testDeclarationStatement(String test, Ast.Stmt.Declaration ast, Object expected, ExecutionEngine.Kind kind) {
+        Scope scope = test(ast, Environment.NIL.getValue(), new Scope(null), kind);
         Assertions.assertEquals(expected, scope.lookupVariable(ast.getName()).getValue().getValue());
     }
 
     private static Stream<Arguments> testDeclarationStatement() {
-        return Stream.of(
+        return engines(
                 Arguments.of("Declaration",
                         new Ast.Stmt.Declaration("name", Optional.empty()),
                         Environment.NIL.getValue()
@@ -157,19 +175,21 @@ final class InterpreterTests {
         );
     }
 
-    @Test
-    void testVariableAssignmentStatement() {
+    @ParameterizedTest
+    @EnumSource(ExecutionEngine.Kind.class)
+    void testVariableAssignmentStatement(ExecutionEngine.Kind kind) {
         Scope scope = new Scope(null);
         scope.defineVariable("variable", Environment.create("variable"));
         test(new Ast.Stmt.Assignment(
                 new Ast.Expr.Access(Optional.empty(),"variable"),
                 new Ast.Expr.Literal(BigInteger.ONE)
-        ), Environment.NIL.getValue(), scope);
+        ), Environment.NIL.getValue(), scope, kind);
         Assertions.assertEquals(BigInteger.ONE, scope.lookupVariable("variable").getValue().getValue());
     }
 
-    @Test
-    void testFieldAssignmentStatement() {
+    @ParameterizedTest
+    @EnumSource(ExecutionEngine.Kind.class)
+    void testFieldAssignmentStatement(ExecutionEngine.Kind kind) {
         Scope scope = new Scope(null);
         Scope object = new Scope(null);
         object.defineVariable("field", Environment.create("object.field"));
@@ -177,21 +197,21 @@ final class InterpreterTests {
         test(new Ast.Stmt.Assignment(
                 new Ast.Expr.Access(Optional.of(new Ast.Expr.Access(Optional.empty(), "object")),"field"),
                 new Ast.Expr.Literal(BigInteger.ONE)
-        ), Environment.NIL.getValue(), scope);
+        ), Environment.NIL.getValue(), scope, kind);
         Assertions.assertEquals(BigInteger.ONE, object.lookupVariable("field").getValue().getValue());
     }
 
     @ParameterizedTest
     @MethodSource
-    void testIfStatement(String test, Ast.Stmt.If ast, Object expected) {
+    void testIfStatement(String test, Ast.Stmt.If ast, Object expected, ExecutionEngine.Kind kind) {
         Scope scope = new Scope(null);
         scope.defineVariable("num", Environment.NIL);
-        test(ast, Environment.NIL.getValue(), scope);
+        test(ast, Environment.NIL.getValue(), scope, kind);
         Assertions.assertEquals(expected, scope.lookupVariable("num").getValue().getValue());
     }
 
     private static Stream<Arguments> testIfStatement() {
-        return Stream.of(
+        return engines(
                 Arguments.of("True Condition",
                         new Ast.Stmt.If(
                                 new Ast.Expr.Literal(true),
@@ -211,8 +231,9 @@ final class InterpreterTests {
         );
     }
 
-    @Test
-    void testForStatement() {
+    @ParameterizedTest
+    @EnumSource(ExecutionEngine.Kind.class)
+    void testForStatement(ExecutionEngine.Kind kind) {
         Scope scope = new Scope(null);
         scope.defineVariable("sum", Environment.create(BigInteger.ZERO));
         scope.defineVariable("list", Environment.create(IntStream.range(0, 5)
@@ -227,12 +248,13 @@ final class InterpreterTests {
                                 new Ast.Expr.Access(Optional.empty(),"num")
                         )
                 ))
-        ), Environment.NIL.getValue(), scope);
+        ), Environment.NIL.getValue(), scope, kind);
         Assertions.assertEquals(BigInteger.TEN, scope.lookupVariable("sum").getValue().getValue());
     }
 
-    @Test
-    void testWhileStatement() {
+    @ParameterizedTest
+    @EnumSource(ExecutionEngine.Kind.class)
+    void testWhileStatement(ExecutionEngine.Kind kind) {
         Scope scope = new Scope(null);
         scope.defineVariable("num", Environment.create(BigInteger.ZERO));
         test(new Ast.Stmt.While(
@@ -247,18 +269,18 @@ final class InterpreterTests {
                                 new Ast.Expr.Literal(BigInteger.ONE)
                         )
                 ))
-        ),Environment.NIL.getValue(), scope);
+        ),Environment.NIL.getValue(), scope, kind);
         Assertions.assertEquals(BigInteger.TEN, scope.lookupVariable("num").getValue().getValue());
     }
 
     @ParameterizedTest
     @MethodSource
-    void testLiteralExpression(String test, Ast ast, Object expected) {
-        test(ast, expected, new Scope(null));
+    void testLiteralExpression(String test, Ast ast, Object expected, ExecutionEngine.Kind kind) {
+        test(ast, expected, new Scope(null), kind);
     }
 
     private static Stream<Arguments> testLiteralExpression() {
-        return Stream.of(
+        return engines(
                 Arguments.of("Nil", new Ast.Expr.Literal(null), Environment.NIL.getValue()), //remember, special case
                 Arguments.of("Boolean", new Ast.Expr.Literal(true), true),
                 Arguments.of("Integer", new Ast.Expr.Literal(BigInteger.ONE), BigInteger.ONE),
@@ -270,12 +292,12 @@ final class InterpreterTests {
 
     @ParameterizedTest
     @MethodSource
-    void testGroupExpression(String test, Ast ast, Object expected) {
-        test(ast, expected, new Scope(null));
+    void testGroupExpression(String test, Ast ast, Object expected, ExecutionEngine.Kind kind) {
+        test(ast, expected, new Scope(null), kind);
     }
 
     private static Stream<Arguments> testGroupExpression() {
-        return Stream.of(
+        return engines(
                 Arguments.of("Literal", new Ast.Expr.Group(new Ast.Expr.Literal(BigInteger.ONE)), BigInteger.ONE),
                 Arguments.of("Binary",
                         new Ast.Expr.Group(new Ast.Expr.Binary("+",
@@ -289,12 +311,12 @@ final class InterpreterTests {
 
     @ParameterizedTest
     @MethodSource
-    void testBinaryExpression(String test, Ast ast, Object expected) {
-        test(ast, expected, new Scope(null));
+    void testBinaryExpression(String test, Ast ast, Object expected, ExecutionEngine.Kind kind) {
+        test(ast, expected, new Scope(null), kind);
     }
 
     private static Stream<Arguments> testBinaryExpression() {
-        return Stream.of(
+        return engines(
                 Arguments.of("And",
                         new Ast.Expr.Binary("AND",
                                 new Ast.Expr.Literal(true),
@@ -356,17 +378,17 @@ final class InterpreterTests {
 
     @ParameterizedTest
     @MethodSource
-    void testAccessExpression(String test, Ast ast, Object expected) {
+    void testAccessExpression(String test, Ast ast, Object expected, ExecutionEngine.Kind kind) {
         Scope scope = new Scope(null);
         scope.defineVariable("variable", Environment.create("variable"));
         Scope object = new Scope(null);
         object.defineVariable("field", Environment.create("object.field"));
         scope.defineVariable("object", new Environment.PlcObject(object, "object"));
-        test(ast, expected, scope);
+        test(ast, expected, scope, kind);
     }
 
     private static Stream<Arguments> testAccessExpression() {
-        return Stream.of(
+        return engines(
                 Arguments.of("Variable",
                         new Ast.Expr.Access(Optional.empty(), "variable"),
                         "variable"
@@ -380,17 +402,18 @@ final class InterpreterTests {
 
     @ParameterizedTest
     @MethodSource
-    void testFunctionExpression(String test, Ast ast, Object expected) {
+    void testFunctionExpression(String test, Ast ast, Object expected, ExecutionEngine.Kind kind) {
         Scope scope = new Scope(null);
         scope.defineFunction("function", 0, args -> Environment.create("function"));
         Scope object = new Scope(null);
         object.defineFunction("method", 1, args -> Environment.create("object.method"));
+        object.defineFunction("method", 3, args -> Environment.create(args.get(0).getValue() + ".method(" + args.get(1).getValue() + ", " + args.get(2).getValue() + ")"));
         scope.defineVariable("object", new Environment.PlcObject(object, "object"));
-        test(ast, expected, scope);
+        test(ast, expected, scope, kind);
     }
 
     private static Stream<Arguments> testFunctionExpression() {
-        return Stream.of(
+        return engines(
                 Arguments.of("Function",
                         new Ast.Expr.Function(Optional.empty(), "function", Arrays.asList()),
                         "function"
@@ -399,6 +422,17 @@ final class InterpreterTests {
                         new Ast.Expr.Function(Optional.of(new Ast.Expr.Access(Optional.empty(), "object")), "method", Arrays.asList()),
                         "object.method"
                 ),
+                Arguments.of("Method Arguments",
+                        new Ast.Expr.Function(Optional.of(new Ast.Expr.Access(Optional.empty(), "object")), "method", Arrays.asList(
+                                new Ast.Expr.Literal(BigInteger.ONE),
+                                new Ast.Expr.Literal("two")
+                        )),
+                        "object.method(1, two)"
+                ),
+                Arguments.of("Undefined Method",
+                        new Ast.Expr.Function(Optional.of(new Ast.Expr.Literal(BigInteger.ONE)), "compare", Arrays.asList(new Ast.Expr.Literal(BigInteger.ONE))),
+                        null
+                ),
                 Arguments.of("Print",
                         new Ast.Expr.Function(Optional.empty(), "print", Arrays.asList(new Ast.Expr.Literal("Hello, World!"))),
                         Environment.NIL.getValue()
@@ -406,14 +440,327 @@ final class InterpreterTests {
         );
     }
 
-    private static Scope test(Ast ast, Object expected, Scope scope) {
-        Interpreter interpreter = new Interpreter(scope);
+    @ParameterizedTest
+    @EnumSource(ExecutionEngine.Kind.class)
+    void testFunctionRedefinition(ExecutionEngine.Kind kind) {
+        Ast.Expr.Function ast = new Ast.Expr.Function(Optional.empty(), "function", Arrays.asList());
+        Scope scope = new Scope(null);
+        scope.defineFunction("function", 0, args -> Environment.create("parent"));
+        ExecutionEngine engine = kind.create(scope);
+        Assertions.assertEquals("parent", engine.execute(ast).getValue());
+        engine.getScope().defineFunction("function", 0, args -> Environment.create("child"));
+        Assertions.assertEquals("child", engine.execute(ast).getValue());
+        Scope other = new Scope(null);
+        other.defineFunction("function", 0, args -> Environment.create("other"));
+        Assertions.assertEquals("other", kind.create(other).execute(ast).getValue());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionEngine.Kind.class)
+    void testVariableShadowing(ExecutionEngine.Kind kind) {
+        Ast.Expr.Access ast = new Ast.Expr.Access(Optional.empty(), "variable");
+        Scope scope = new Scope(null);
+        scope.defineVariable("variable", Environment.create("parent"));
+        ExecutionEngine engine = kind.create(scope);
+        Assertions.assertEquals("parent", engine.execute(ast).getValue());
+        engine.execute(new Ast.Stmt.Declaration("variable", Optional.of(new Ast.Expr.Literal("child"))));
+        Assertions.assertEquals("child", engine.execute(ast).getValue());
+        Scope other = new Scope(null);
+        other.defineVariable("variable", Environment.create("other"));
+        Assertions.assertEquals("other", kind.create(other).execute(ast).getValue());
+    }
+
+    @Test
+    void testScopeVersion() {
+        Scope scope = new Scope(null);
+        Scope child = new Scope(scope);
+        int version = child.getVersion();
+        Scope other = new Scope(null);
+        new Scope(other);
+        other.defineVariable("variable", Environment.NIL);
+        Assertions.assertEquals(version, child.getVersion());
+        scope.defineVariable("variable", Environment.NIL);
+        Assertions.assertNotEquals(version, child.getVersion());
+    }
+
+    @Test
+    void testFunctionVersion() {
+        Scope scope = new Scope(null);
+        Scope child = new Scope(scope);
+        scope.defineFunction("function", 2, args -> Environment.create(2));
+        int version = child.getFunctionVersion();
+        new Scope(null).defineFunction("function", 1, args -> Environment.create(1));
+        Assertions.assertEquals(version, child.getFunctionVersion());
+        Assertions.assertThrows(RuntimeException.class, () -> child.lookupFunction("function", 1));
+        scope.defineFunction("function", 1, args -> Environment.create(1));
+        Assertions.assertNotEquals(version, child.getFunctionVersion());
+        Assertions.assertEquals(1, child.lookupFunction("function", 1).invoke(Arrays.asList()).getValue());
+        Assertions.assertEquals(2, child.lookupFunction("function", 2).invoke(Arrays.asList()).getValue());
+        Assertions.assertThrows(RuntimeException.class, () -> child.lookupFunction("function", 3));
+        Assertions.assertThrows(RuntimeException.class, () -> scope.defineFunction("function", 2, args -> Environment.NIL));
+    }
+
+    @Test
+    void testMethodTable() {
+        Scope parent = new Scope(null);
+        Environment.Type type = new Environment.Type("Test", "Test", new Scope(parent));
+        type.getScope().defineFunction("method", 1, args -> Environment.create("type"));
+        new Environment.Namespace().registerType(type);
+        Assertions.assertEquals("type", type.getMethod("method", 0).invoke(Arrays.asList(Environment.NIL)).getValue());
+        Assertions.assertThrows(RuntimeException.class, () -> type.getMethod("inherited", 0));
+        new Scope(null).defineFunction("inherited", 1, args -> Environment.create("unrelated"));
+        Assertions.assertThrows(RuntimeException.class, () -> type.getMethod("inherited", 0));
+        parent.defineFunction("inherited", 1, args -> Environment.create("parent"));
+        parent.defineFunction("method", 1, args -> Environment.create("parent"));
+        Assertions.assertEquals("parent", type.getMethod("inherited", 0).invoke(Arrays.asList(Environment.NIL)).getValue());
+        Assertions.assertEquals("type", type.getMethod("method", 0).invoke(Arrays.asList(Environment.NIL)).getValue());
+    }
+
+    @Test
+    void testSitesReleaseInterpreter() {
+        Ast.Source ast = new Parser(new Lexer("LET variable: Integer = 1;\n" +
+                "DEF function() DO RETURN variable; END\n" +
+                "DEF main() DO RETURN function(); END").lex()).parseSource();
+        Interpreter interpreter = new Interpreter(new Scope(null));
+        Assertions.assertEquals(BigInteger.ONE, interpreter.execute(ast).getValue());
+        Ast.Expr.Access access = (Ast.Expr.Access) ((Ast.Stmt.Return) ast.getMethods().get(0).getStatements().get(0)).getValue();
+        Ast.Expr.Function call = (Ast.Expr.Function) ((Ast.Stmt.Return) ast.getMethods().get(1).getStatements().get(0)).getValue();
+        for (Object site : Arrays.asList(access.getAccessSite(), call.getCallSite())) {
+            Assertions.assertNotNull(site);
+            for (Field field : site.getClass().getDeclaredFields()) {
+                Assertions.assertTrue(field.getType() == int.class || field.getType() == Object.class || field.getType() == WeakReference.class, field.toString());
+                field.setAccessible(true);
+                Assertions.assertNotSame(interpreter, get(field, site), field.toString());
+            }
+        }
+        Assertions.assertEquals(BigInteger.ONE, new Interpreter(new Scope(null)).execute(ast).getValue());
+    }
+
+    private static Object get(Field field, Object object) {
+        try {
+            return field.get(object);
+        } catch (IllegalAccessException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testProgram(String test, String input, String output, Object expected, ExecutionEngine.Kind kind) {
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            test(new Parser(new Lexer(input).lex()).parseSource(), expected, new Scope(null), kind);
+            if (output != null) {
+                Assertions.assertEquals(output.replace("\n", System.lineSeparator()), out.toString());
+            }
+        } finally {
+            System.setOut(sysout);
+        }
+    }
+
+    private static Stream<Arguments> testProgram() {
+        return engines(
+                Arguments.of("Loop",
+                        "LET sum: Integer = 0;\n" +
+                        "DEF main() DO\n" +
+                        "    LET i = 0;\n" +
+                        "    WHILE i < 100 DO\n" +
+                        "        IF i / 2 * 2 == i DO sum = sum + i; ELSE sum = sum - 1; END\n" +
+                        "        i = i + 1;\n" +
+                        "    END\n" +
+                        "    RETURN sum;\n" +
+                        "END",
+                        "", BigInteger.valueOf(2400)
+                ),
+                Arguments.of("Recursion",
+                        "DEF fib(n: Integer) DO\n" +
+                        "    IF n <= 1 DO RETURN n; END\n" +
+                        "    RETURN fib(n - 1) + fib(n - 2);\n" +
+                        "END\n" +
+                        "DEF main() DO RETURN fib(15); END",
+                        "", BigInteger.valueOf(610)
+                ),
+                Arguments.of("Scope After Call",
+                        "LET x: Integer = 1;\n" +
+                        "DEF f() DO LET x = 2; RETURN x; END\n" +
+                        "DEF main() DO\n" +
+                        "    LET y = 3;\n" +
+                        "    WHILE y > 0 DO print(f() + x + y); y = y - 1; END\n" +
+                        "    RETURN y;\n" +
+                        "END",
+                        "6\n5\n4\n", BigInteger.ZERO
+                ),
+                Arguments.of("Return From Loop",
+                        "DEF find(n: Integer) DO\n" +
+                        "    LET i = 0;\n" +
+                        "    WHILE TRUE DO IF i * i >= n DO RETURN i; END i = i + 1; END\n" +
+                        "END\n" +
+                        "DEF main() DO print(find(50)); RETURN find(10); END",
+                        "8\n", BigInteger.valueOf(4)
+                ),
+                Arguments.of("Operators",
+                        "DEF main() DO\n" +
+                        "    print(\"a\" + 1 + 'b');\n" +
+                        "    print(TRUE OR undefined);\n" +
+                        "    print(FALSE AND 1);\n" +
+                        "    print(1.5 * 2.0 - 0.5 / 2.0 != 2.8);\n" +
+                        "    RETURN NIL;\n" +
+                        "END",
+                        "a1b\ntrue\nfalse\ntrue\n", Environment.NIL.getValue()
+                ),
+                Arguments.of("Shadowing",
+                        "LET x: Integer = 1;\n" +
+                        "DEF main() DO\n" +
+                        "    print(x);\n" +
+                        "    LET x = x + 1;\n" +
+                        "    IF TRUE DO print(x); LET x = x * 10; print(x); END\n" +
+                        "    LET i = 0;\n" +
+                        "    WHILE i < 2 DO LET x = i; print(x); i = i + 1; END\n" +
+                        "    RETURN x;\n" +
+                        "END",
+                        "1\n2\n20\n0\n1\n", BigInteger.valueOf(2)
+                ),
+                Arguments.of("Redeclaration",
+                        "DEF main() DO LET x = 1; IF TRUE DO LET x = 2; END print(x); LET x = 3; RETURN x; END",
+                        "1\n", null
+                ),
+                Arguments.of("Integer Overflow",
+                        "DEF main() DO\n" +
+                        "    LET max = 9223372036854775807;\n" +
+                        "    print(max + 1);\n" +
+                        "    print(0 - max - 2);\n" +
+                        "    print(max * max / max == max);\n" +
+                        "    print((0 - max - 1) / (0 - 1));\n" +
+                        "    print(max + 1 > max AND 1024 == 1023 + 1);\n" +
+                        "    RETURN max + 1 - 1;\n" +
+                        "END",
+                        "9223372036854775808\n-9223372036854775809\ntrue\n9223372036854775808\ntrue\n", new BigInteger("9223372036854775807")
+                ),
+                Arguments.of("Polymorphic Operator",
+                        "DEF combine(a: Any, b: Any) DO RETURN a + b; END\n" +
+                        "DEF less(a: Any, b: Any) DO RETURN a < b; END\n" +
+                        "DEF main() DO\n" +
+                        "    print(combine(1, 2));\n" +
+                        "    print(combine(\"a\", 2));\n" +
+                        "    print(combine(1.5, 2.25));\n" +
+                        "    print(combine(3, 4));\n" +
+                        "    print(less(1, 2));\n" +
+                        "    print(less(\"b\", \"a\"));\n" +
+                        "    RETURN less(1, 2.0);\n" +
+                        "END",
+                        "3\na2\n3.75\n7\ntrue\nfalse\n", null
+                ),
+                Arguments.of("Undefined Variable",
+                        "DEF main() DO print(1); RETURN undefined; END",
+                        "1\n", null
+                ),
+                Arguments.of("Invalid Operands",
+                        "DEF main() DO RETURN 1 + 1.0; END",
+                        "", null
+                ),
+                Arguments.of("Division By Zero",
+                        "DEF main() DO RETURN 1 / 0; END",
+                        "", null
+                )
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testJitCompiler(String test, String input, boolean compiled, Object expected) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        Assertions.assertEquals(compiled, JitCompiler.compile(ast.getMethods().get(0)) != null);
+        Interpreter interpreter = new Interpreter(new Scope(null), 0);
+        if (expected != null) {
+            Assertions.assertEquals(expected, interpreter.execute(ast).getValue());
+        } else {
+            Assertions.assertThrows(RuntimeException.class, () -> interpreter.execute(ast));
+        }
+    }
+
+    private static Stream<Arguments> testJitCompiler() {
+        return Stream.of(
+                Arguments.of("Recursion",
+                        "DEF fib(n: Integer): Integer DO IF n < 2 DO RETURN n; END RETURN fib(n - 1) + fib(n - 2); END\n" +
+                        "DEF main() DO RETURN fib(20); END",
+                        true, BigInteger.valueOf(6765)
+                ),
+                Arguments.of("Loop",
+                        "DEF sum(n: Integer): Integer DO\n" +
+                        "    LET sum = 0;\n" +
+                        "    LET i = 1;\n" +
+                        "    WHILE i <= n DO LET odd = i / 2 * 2 != i; IF odd OR FALSE DO sum = sum + i; END i = i + 1; END\n" +
+                        "    RETURN sum;\n" +
+                        "END\n" +
+                        "DEF main() DO RETURN sum(100); END",
+                        true, BigInteger.valueOf(2500)
+                ),
+                Arguments.of("Boolean",
+                        "DEF even(n: Integer): Boolean DO IF n == 0 OR FALSE AND TRUE DO RETURN TRUE; END RETURN even(n - 1) == FALSE; END\n" +
+                        "DEF main() DO RETURN even(10); END",
+                        true, true
+                ),
+                Arguments.of("Overflow",
+                        "DEF factorial(n: Integer): Integer DO IF n <= 1 DO RETURN 1; END RETURN n * factorial(n - 1); END\n" +
+                        "DEF main() DO RETURN factorial(25); END",
+                        true, new BigInteger("15511210043330985984000000")
+                ),
+                Arguments.of("Division Overflow",
+                        "DEF divide(x: Integer, y: Integer): Integer DO RETURN x / y; END\n" +
+                        "DEF main() DO RETURN divide(-9223372036854775808, -1); END",
+                        true, new BigInteger("9223372036854775808")
+                ),
+                Arguments.of("Division By Zero",
+                        "DEF divide(x: Integer, y: Integer): Integer DO RETURN x / y; END\n" +
+                        "DEF main() DO RETURN divide(1, 0); END",
+                        true, null
+                ),
+                Arguments.of("End Of Method",
+                        "DEF positive(n: Integer): Integer DO IF n > 0 DO RETURN n; END END\n" +
+                        "DEF main() DO RETURN positive(0); END",
+                        true, Environment.NIL.getValue()
+                ),
+                Arguments.of("Non Integer Argument",
+                        "DEF twice(n: Integer): Integer DO RETURN n + n; END\n" +
+                        "DEF main() DO RETURN twice(\"a\"); END",
+                        true, "aa"
+                ),
+                Arguments.of("Side Effects",
+                        "DEF f(n: Integer): Integer DO print(n); RETURN n; END\n" +
+                        "DEF main() DO RETURN f(1); END",
+                        false, BigInteger.ONE
+                ),
+                Arguments.of("Global",
+                        "LET x: Integer = 1;\n" +
+                        "DEF f(n: Integer): Integer DO RETURN n + x; END\n" +
+                        "DEF main() DO RETURN f(1); END",
+                        false, BigInteger.valueOf(2)
+                )
+        );
+    }
+
+    /**
+     * Repeats each set of arguments for every execution engine, which is
+     * passed to the test as an additional last argument.
+     */
+    private static Stream<Arguments> engines(Arguments... arguments) {
+        return Arrays.stream(arguments).flatMap(args -> Arrays.stream(ExecutionEngine.Kind.values()).map(kind -> {
+            Object[] values = Arrays.copyOf(args.get(), args.get().length + 1);
+            values[values.length - 1] = kind;
+            return Arguments.of(values);
+        }));
+    }
+
+    private static Scope test(Ast ast, Object expected, Scope scope, ExecutionEngine.Kind kind) {
+        ExecutionEngine engine = kind.create(scope);
         if (expected != null) {
-            Assertions.assertEquals(expected, interpreter.visit(ast).getValue());
+            Assertions.assertEquals(expected, engine.execute(ast).getValue());
         } else {
-            Assertions.assertThrows(RuntimeException.class, () -> interpreter.visit(ast));
+            Assertions.assertThrows(RuntimeException.class, () -> engine.execute(ast));
         }
-        return interpreter.getScope();
+        return engine.getScope();
     }
 
 }
@@ -6,8 +6,15 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 
 public class LexerTests {
@@ -191,6 +198,151 @@ public class LexerTests {
         Assertions.assertEquals(2, exception.getIndex());
     }
 
+    @ParameterizedTest
+    @MethodSource
+    void testTableEngine(String test, String input) {
+        Assertions.assertEquals(lex(input, Lexer.Engine.REGEX), lex(input, Lexer.Engine.TABLE));
+    }
+
+    private static Stream<Arguments> testTableEngine() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Whitespace", " \b\n\r\t"),
+                Arguments.of("Statement", "LET x = -5.25;\nx = x+1;"),
+                Arguments.of("Numbers", "1.2.3 12..56 1. +1 ++1 |5 -a"),
+                Arguments.of("Operators", "<= >= == != <> != !! === ( ) ;"),
+                Arguments.of("Identifiers", "one-two _five a1-b2 \u00e9t\u00e9"),
+                Arguments.of("Literals", "'c' '\\n' \"Hello,\\tWorld\" \"\\\"\""),
+                Arguments.of("Unterminated String", "\"unterminated"),
+                Arguments.of("String Newline", "\"a\nb\""),
+                Arguments.of("Invalid Escape", "\"invalid \\escape\""),
+                Arguments.of("Empty Character", "''"),
+                Arguments.of("Long Character", "'ab'"),
+                Arguments.of("Unterminated Character", "'c"),
+                Arguments.of("Trailing Escape", "'\\")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testTableEngine")
+    void testStreamingLexer(String test, String input) {
+        for (int capacity : new int[] {1, 4, StreamingLexer.DEFAULT_CAPACITY}) {
+            List<Token> tokens = new ArrayList<>();
+            Object actual;
+            try {
+                new StreamingLexer(new StringReader(input), capacity).forEachRemaining(tokens::add);
+                actual = tokens;
+            } catch (ParseException e) {
+                actual = e.getMessage() + "@" + e.getIndex();
+            }
+            Assertions.assertEquals(lex(input, Lexer.Engine.REGEX), actual);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("testTableEngine")
+    void testMappedFile(String test, String input) throws IOException {
+        Path path = Files.createTempFile("lexer", ".plc");
+        try {
+            Files.write(path, input.getBytes(StandardCharsets.ISO_8859_1));
+            Object actual;
+            try {
+                actual = Lexer.lex(path);
+            } catch (ParseException e) {
+                actual = e.getMessage() + "@" + e.getIndex();
+            }
+            Assertions.assertEquals(lex(input, Lexer.Engine.REGEX), actual);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("testTableEngine")
+    void testTokenBuffer(String test, String input) {
+        for (Lexer.Engine engine : Lexer.Engine.values()) {
+            Object actual;
+            try {
+                actual = new ArrayList<>(new Lexer(input, engine).lexBuffer().asList());
+            } catch (ParseException e) {
+                actual = e.getMessage() + "@" + e.getIndex();
+            }
+            Assertions.assertEquals(lex(input, Lexer.Engine.REGEX), actual);
+        }
+    }
+
+    @Test
+    void testSymbols() {
+        TokenBuffer buffer = new Lexer("LET name = name + \"name\"; END", Lexer.Engine.TABLE).lexBuffer();
+        Assertions.assertTrue(SymbolTable.isKeyword(buffer.getSymbol(0)));
+        Assertions.assertEquals(SymbolTable.LET, buffer.getSymbol(0));
+        Assertions.assertEquals(SymbolTable.END, buffer.getSymbol(7));
+        Assertions.assertFalse(SymbolTable.isKeyword(buffer.getSymbol(1)));
+        Assertions.assertEquals(buffer.getSymbol(1), buffer.getSymbol(3));
+        Assertions.assertSame(buffer.getLiteral(1), buffer.getLiteral(3));
+        Assertions.assertEquals(-1, buffer.getSymbol(5));
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testParallelLexer(String test, String input) {
+        for (int chunkSize : new int[] {1, 4, 16}) {
+            ParallelLexer lexer = new ParallelLexer(input, chunkSize, ForkJoinPool.commonPool());
+            Object actual;
+            try {
+                actual = lexer.lex();
+                Assertions.assertEquals(actual, new ArrayList<>(lexer.lexBuffer().asList()));
+            } catch (ParseException e) {
+                actual = e.getMessage() + "@" + e.getIndex();
+            }
+            Assertions.assertEquals(lex(input, Lexer.Engine.REGEX), actual);
+        }
+    }
+
+    private static Stream<Arguments> testParallelLexer() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Single Line", "LET x = 1.5 + y;"),
+                Arguments.of("Multiple Lines", "LET x = 1;\nDEF main() DO\n    print(\"x\\n\");\n    x = x + 1;\nEND\n"),
+                Arguments.of("Blank Lines", "\n\n\na\n\n\n b \r\n c"),
+                Arguments.of("First Error", "x = 1;\n\"one\n\"two\n'three'\n"),
+                Arguments.of("Later Error", "x = 1;\ny = 2;\nz = '3\n")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testIncrementalLexer(String test, String input, int offset, int removed, String inserted) {
+        TokenBuffer previous = new Lexer(input, Lexer.Engine.TABLE).lexBuffer();
+        List<Token> tokens = new ArrayList<>(previous.asList());
+        int symbols = previous.getSymbols().size();
+        String edited = input.substring(0, offset) + inserted + input.substring(offset + removed);
+        Object actual;
+        try {
+            actual = new ArrayList<>(IncrementalLexer.relex(previous, offset, removed, inserted).asList());
+        } catch (ParseException e) {
+            actual = e.getMessage() + "@" + e.getIndex();
+        }
+        Assertions.assertEquals(lex(edited, Lexer.Engine.REGEX), actual);
+        Assertions.assertEquals(tokens, previous.asList());
+        Assertions.assertEquals(symbols, previous.getSymbols().size());
+    }
+
+    private static Stream<Arguments> testIncrementalLexer() {
+        return Stream.of(
+                Arguments.of("Insert Token", "LET x = 5;", 8, 0, "1 + "),
+                Arguments.of("Extend Identifier", "LET x = 5;", 5, 0, "yz"),
+                Arguments.of("Merge Identifiers", "ab cd ef", 2, 1, ""),
+                Arguments.of("Decimal Point", "x = 1 . y;", 5, 1, ""),
+                Arguments.of("Digit After Point", "x = 1.;", 6, 0, "5"),
+                Arguments.of("Open String", "f(1); g(2);", 2, 0, "\""),
+                Arguments.of("Unterminated String", "x = \"a\"; y = 1;", 6, 0, "\""),
+                Arguments.of("Replace Everything", "LET x = 5;", 0, 10, "DEF f() DO END"),
+                Arguments.of("Append", "x = 1", 5, 0, ".5;"),
+                Arguments.of("Empty Source", "", 0, 0, "x")
+        );
+    }
+
     /**
      * Tests that lexing the input through {@link Lexer#lexToken()} produces a
      * single token with the expected type and literal matching the input.
@@ -223,4 +375,16 @@ public class LexerTests {
         }
     }
 
+    /**
+     * Lexes the input with the given engine, returning either the tokens or a
+     * description of the {@link ParseException} so engines can be compared.
+     */
+    private static Object lex(String input, Lexer.Engine engine) {
+        try {
+            return new Lexer(input, engine).lex();
+        } catch (ParseException e) {
+            return e.getMessage() + "@" + e.getIndex();
+        }
+    }
+
 }
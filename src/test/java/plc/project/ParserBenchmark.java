@@ -0,0 +1,92 @@
+package plc.project;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares the expression engines of the {@link Parser} on deeply nested and
+ * long flat expressions. Run with {@code gradle benchmark}; each engine parses
+ * the same pre-lexed tokens, so only parsing is measured.
+ */
+final class ParserBenchmark {
+
+    private static final String[] OPERATORS = {"AND", "OR", "<", "<=", ">", ">=", "==", "!=", "+", "-", "*", "/"};
+
+    public static void main(String[] args) throws InterruptedException {
+        //Nested groups recurse through every precedence level, so run with a larger stack.
+        Thread thread = new Thread(null, ParserBenchmark::run, "benchmark", 1 << 28);
+        thread.start();
+        thread.join();
+    }
+
+    private static void run() {
+        benchmark("Flat (10000 operators)", flat(10_000));
+        benchmark("Nested (2000 groups)", nested(2_000));
+        benchmark("Mixed (1000 x 10 operators)", mixed(1_000, 10));
+    }
+
+    private static void benchmark(String name, String input) {
+        TokenBuffer tokens = new Lexer(input, Lexer.Engine.TABLE).lexBuffer();
+        if (!parse(tokens, Parser.Engine.DESCENT).equals(parse(tokens, Parser.Engine.PRECEDENCE))) {
+            throw new AssertionError("The engines produced different trees for " + name + ".");
+        }
+        System.out.println(name + ":");
+        for (Parser.Engine engine : Parser.Engine.values()) {
+            System.out.printf("  %-10s %10.1f us/parse%n", engine, time(() -> parse(tokens, engine)) / 1e3);
+        }
+    }
+
+    private static Ast.Expr parse(TokenBuffer tokens, Parser.Engine engine) {
+        return new Parser(tokens, engine).parseExpression();
+    }
+
+    /**
+     * Returns the average time of the fastest of several batches, in
+     * nanoseconds, after warming up.
+     */
+    private static double time(Supplier<?> supplier) {
+        for (int i = 0; i < 200; i++) {
+            supplier.get();
+        }
+        double best = Double.MAX_VALUE;
+        for (int batch = 0; batch < 10; batch++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 50; i++) {
+                supplier.get();
+            }
+            best = Math.min(best, (System.nanoTime() - start) / 50.0);
+        }
+        return best;
+    }
+
+    private static String flat(int operators) {
+        Random random = new Random(0);
+        StringBuilder builder = new StringBuilder("x0");
+        for (int i = 1; i <= operators; i++) {
+            builder.append(' ').append(OPERATORS[random.nextInt(OPERATORS.length)]).append(" x").append(i);
+        }
+        return builder.toString();
+    }
+
+    private static String nested(int depth) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            builder.append("(x").append(i).append(" + ");
+        }
+        builder.append('1');
+        for (int i = 0; i < depth; i++) {
+            builder.append(')');
+        }
+        return builder.toString();
+    }
+
+    private static String mixed(int calls, int operators) {
+        Random random = new Random(0);
+        StringBuilder builder = new StringBuilder("0");
+        for (int i = 0; i < calls; i++) {
+            builder.append(" + f").append(i).append("(").append(flat(operators).replace("x", "a" + random.nextInt(10))).append(")");
+        }
+        return builder.toString();
+    }
+
+}
@@ -8,10 +8,13 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -303,6 +306,18 @@ final class ParserTests {
                 Arguments.of("Escape Character",
                         Arrays.asList(new Token(Token.Type.STRING, "\"Hello,\\nWorld!\"", 0)),
                         new Ast.Expr.Literal("Hello,\nWorld!")
+                ),
+                Arguments.of("Escaped Backslash",
+                        Arrays.asList(new Token(Token.Type.STRING, "\"a\\\\nb\\\\\"", 0)),
+                        new Ast.Expr.Literal("a\\nb\\")
+                ),
+                Arguments.of("All Escapes",
+                        Arrays.asList(new Token(Token.Type.STRING, "\"\\b\\n\\r\\t\\'\\\"\\\\\"", 0)),
+                        new Ast.Expr.Literal("\b\n\r\t'\"\\")
+                ),
+                Arguments.of("Escaped Character",
+                        Arrays.asList(new Token(Token.Type.CHARACTER, "'\\''", 0)),
+                        new Ast.Expr.Literal('\'')
                 )
         );
     }
@@ -564,6 +579,157 @@ final class ParserTests {
         test(input, expected, Parser::parseSource);
     }
 
+    @ParameterizedTest
+    @MethodSource
+    void testTokenBuffer(String test, String input) {
+        Ast.Source expected = new Parser(new Lexer(input).lex()).parseSource();
+        Assertions.assertEquals(expected, new Parser(new Lexer(input, Lexer.Engine.TABLE).lexBuffer()).parseSource());
+    }
+
+    private static Stream<Arguments> testTokenBuffer() {
+        return Stream.of(
+                Arguments.of("Empty", ""),
+                Arguments.of("Example 1", "LET first: Integer = 1;\n" +
+                        "DEF main(): Integer DO\n" +
+                        "    WHILE first != 10 DO\n" +
+                        "        print(first);\n" +
+                        "        first = first + 1;\n" +
+                        "    END\n" +
+                        "END"),
+                Arguments.of("Literals", "DEF f() DO print(\"a\\tb\", 'c', 1.5, -2, TRUE, NIL); END"),
+                Arguments.of("Parameters", "DEF f(a: Integer, b: Decimal): Integer DO RETURN a; END")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testPrecedenceEngine(String test, String input) {
+        Assertions.assertEquals(parse(input, Parser.Engine.DESCENT), parse(input, Parser.Engine.PRECEDENCE));
+    }
+
+    private static Stream<Arguments> testPrecedenceEngine() {
+        return Stream.of(
+                Arguments.of("Primary", "x"),
+                Arguments.of("Left Associative", "a - b - c / d / e"),
+                Arguments.of("All Levels", "a OR b AND c < d + e * f.g(h) >= i - j / k != l"),
+                Arguments.of("Comparisons", "a < b <= c > d >= e == f != g"),
+                Arguments.of("Grouped", "(a OR b) * (c + (d < e))"),
+                Arguments.of("Arguments", "f(a + b * c, g(d AND e) == h).i - j"),
+                Arguments.of("Not Operators", "a = b"),
+                Arguments.of("Missing Operand", "a + * b"),
+                Arguments.of("Trailing Operator", "a AND b <"),
+                Arguments.of("Unclosed Group", "(a + b")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testRecovery(String test, String input, String recovered, List<String> diagnostics) {
+        List<ParseException> actual = new ArrayList<>();
+        Ast.Source source = new Parser(new Lexer(input).lex()).parseSource(actual);
+        Assertions.assertEquals(new Parser(new Lexer(recovered).lex()).parseSource(), source);
+        Assertions.assertEquals(diagnostics, actual.stream().map(e -> e.getMessage() + "@" + e.getIndex()).collect(Collectors.toList()));
+    }
+
+    private static Stream<Arguments> testRecovery() {
+        return Stream.of(
+                Arguments.of("Valid",
+                        "LET x: Integer = 1;\nDEF main() DO print(x); END",
+                        "LET x: Integer = 1;\nDEF main() DO print(x); END",
+                        Arrays.asList()
+                ),
+                Arguments.of("Field",
+                        "LET x: Integer = ;\nLET y: Integer = 1;\nDEF main() DO print(y); END",
+                        "LET y: Integer = 1;\nDEF main() DO print(y); END",
+                        Arrays.asList("Invalid Primary Expression@17")
+                ),
+                Arguments.of("Statements",
+                        "DEF f() DO\n  x = ;\n  y = 1;\n  z = );\nEND\nDEF g() DO RETURN 1; END",
+                        "DEF f() DO y = 1; END DEF g() DO RETURN 1; END",
+                        Arrays.asList("Invalid Primary Expression@17", "Invalid Primary Expression@34")
+                ),
+                Arguments.of("Method Header",
+                        "DEF f(x Integer) DO\n  print(x);\nEND\nDEF g() DO END",
+                        "DEF g() DO END",
+                        Arrays.asList("Expected ':', received: @8")
+                ),
+                Arguments.of("Else",
+                        "DEF f() DO IF a DO b; ELSE c = ; END END",
+                        "DEF f() DO IF a DO b; ELSE END END",
+                        Arrays.asList("Invalid Primary Expression@31")
+                ),
+                Arguments.of("Missing End",
+                        "DEF f() DO\n  WHILE x DO\n    y;\nDEF g() DO END",
+                        "DEF f() DO WHILE x DO y; END END DEF g() DO END",
+                        Arrays.asList("Expected 'END', received: @31", "Expected 'END', received: @31")
+                ),
+                Arguments.of("Field After Method",
+                        "DEF f() DO END\nLET x: Integer;\nEND",
+                        "LET x: Integer; DEF f() DO END",
+                        Arrays.asList("Unexpected token: @15", "Unexpected token: @31")
+                ),
+                Arguments.of("End Of Input",
+                        "DEF f() DO y = 1",
+                        "DEF f() DO END",
+                        Arrays.asList("Missing ';'!@16", "Missing 'END'!@16")
+                )
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testParallelParser(String test, String input, boolean chunked) {
+        TokenBuffer tokens = new Lexer(input, Lexer.Engine.TABLE).lexBuffer();
+        Object expected, actual;
+        try {
+            expected = new Parser(tokens).parseSource();
+        } catch (ParseException e) {
+            expected = e.getMessage() + "@" + e.getIndex();
+        }
+        try {
+            actual = new ParallelParser(tokens, Parser.Engine.DESCENT, 8, ForkJoinPool.commonPool()).parseSource();
+        } catch (ParseException e) {
+            actual = e.getMessage() + "@" + e.getIndex();
+        }
+        Assertions.assertEquals(expected, actual);
+        Ast.Source chunks = new ParallelParser(tokens, Parser.Engine.DESCENT, 8, ForkJoinPool.commonPool()).parseChunks();
+        if (chunked) {
+            Assertions.assertEquals(expected, chunks);
+        } else {
+            Assertions.assertNull(chunks);
+        }
+    }
+
+    private static Stream<Arguments> testParallelParser() {
+        StringBuilder methods = new StringBuilder("LET count: Integer = 0;\n");
+        for (int i = 0; i < 200; i++) {
+            methods.append("DEF f").append(i).append("(x: Integer): Integer DO\n")
+                    .append("    IF x > ").append(i).append(" DO WHILE x != 0 DO x = x - 1; END ELSE count = count + 1; END\n")
+                    .append("    RETURN x;\n")
+                    .append("END\n");
+        }
+        return Stream.of(
+                Arguments.of("Empty", "", false),
+                Arguments.of("Methods", methods.toString(), true),
+                Arguments.of("Error", methods + "DEF g() DO x = ; END\n" + methods, false),
+                Arguments.of("Missing End", methods.toString().replaceFirst("RETURN x;\nEND", "RETURN x;"), false),
+                Arguments.of("End Identifier", methods.toString().replace("RETURN x;", "RETURN END.x;"), true),
+                Arguments.of("Do Identifier", methods.toString().replace("count = count", "count = DO"), false)
+        );
+    }
+
+    /**
+     * Parses an expression with the given engine, returning either the tree
+     * or the message and index of the exception (see LexerTests).
+     */
+    private static Object parse(String input, Parser.Engine engine) {
+        try {
+            return new Parser(new Lexer(input).lex(), engine).parseExpression();
+        } catch (ParseException e) {
+            return e.getMessage() + "@" + e.getIndex();
+        }
+    }
+
     /**
      * Standard test function. If expected is null, a ParseException is expected
      * to be thrown (not used in the provided tests).
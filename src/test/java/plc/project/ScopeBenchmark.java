@@ -0,0 +1,48 @@
+package plc.project;
+
+import java.math.BigInteger;
+
+/**
+ * Measures variable access in the {@link Interpreter} from loops nested in
+ * 1 to 50 blocks, where each access has to find variables declared at the
+ * top of the method. Run with {@code gradle benchmark -Pbenchmark=ScopeBenchmark}.
+ */
+final class ScopeBenchmark {
+
+    private static final int ITERATIONS = 10000;
+
+    public static void main(String[] args) {
+        for (int depth : new int[] {1, 5, 10, 25, 50}) {
+            benchmark(depth);
+        }
+    }
+
+    private static void benchmark(int depth) {
+        StringBuilder input = new StringBuilder("DEF main() DO\n    LET sum = 0;\n    LET i = 0;\n");
+        for (int i = 0; i < depth; i++) {
+            input.append("IF TRUE DO\n");
+        }
+        input.append("WHILE i < ").append(ITERATIONS).append(" DO sum = sum + i; i = i + 1; END\n");
+        for (int i = 0; i < depth; i++) {
+            input.append("END\n");
+        }
+        input.append("    RETURN sum;\nEND");
+        Ast.Source ast = new Parser(new Lexer(input.toString()).lex()).parseSource();
+        Object expected = BigInteger.valueOf((long) ITERATIONS * (ITERATIONS - 1) / 2);
+        Object result = new Interpreter(new Scope(null)).execute(ast).getValue();
+        if (!expected.equals(result)) {
+            throw new AssertionError("Depth " + depth + " returned " + result + " instead of " + expected + ".");
+        }
+        for (int i = 0; i < 50; i++) {
+            new Interpreter(new Scope(null)).execute(ast);
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 20; i++) {
+            long start = System.nanoTime();
+            new Interpreter(new Scope(null)).execute(ast);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-20s %8.1f ns/iteration%n", "Depth " + depth + ":", (double) best / ITERATIONS);
+    }
+
+}